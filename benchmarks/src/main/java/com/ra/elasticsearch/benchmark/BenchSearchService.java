@@ -0,0 +1,36 @@
+package com.ra.elasticsearch.benchmark;
+
+import com.ra.elasticsearch.codec.SourceCodec;
+import com.ra.elasticsearch.service.AbstractSearchService;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 不连接集群的service, 只用于测量客户端的计算开销
+ */
+public class BenchSearchService extends AbstractSearchService<BenchVO> {
+
+    @Override
+    protected String getIndexName() {
+        return "bench";
+    }
+
+    @Override
+    protected List<BenchVO> getListVOList(int offset, int pageSize) {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public List<BenchVO> getVOListById(String id) {
+        return Collections.emptyList();
+    }
+
+    public String searchId(BenchVO vo) {
+        return getSearchId(vo);
+    }
+
+    public SourceCodec sourceCodec() {
+        return getSourceCodec();
+    }
+}
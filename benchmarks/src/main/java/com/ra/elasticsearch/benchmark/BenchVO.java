@@ -0,0 +1,83 @@
+package com.ra.elasticsearch.benchmark;
+
+import com.ra.elasticsearch.annotation.SearchId;
+import com.ra.elasticsearch.annotation.SearchableField;
+import com.ra.elasticsearch.enums.ESAnalyzer;
+import com.ra.elasticsearch.enums.ESType;
+
+import java.util.Date;
+import java.util.List;
+
+public class BenchVO {
+    @SearchId
+    @SearchableField
+    private String id;
+    @SearchableField(type = ESType.TEXT, analyzer = ESAnalyzer.DEFAULT, copyTo = "all")
+    private String title;
+    @SearchableField(type = ESType.TEXT)
+    private String body;
+    @SearchableField(type = ESType.LIST)
+    private List<String> tags;
+    @SearchableField(type = ESType.DOUBLE)
+    private double price;
+    @SearchableField(type = ESType.INTEGER)
+    private int stock;
+    @SearchableField(type = ESType.DATE)
+    private Date createTime;
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    public void setBody(String body) {
+        this.body = body;
+    }
+
+    public List<String> getTags() {
+        return tags;
+    }
+
+    public void setTags(List<String> tags) {
+        this.tags = tags;
+    }
+
+    public double getPrice() {
+        return price;
+    }
+
+    public void setPrice(double price) {
+        this.price = price;
+    }
+
+    public int getStock() {
+        return stock;
+    }
+
+    public void setStock(int stock) {
+        this.stock = stock;
+    }
+
+    public Date getCreateTime() {
+        return createTime;
+    }
+
+    public void setCreateTime(Date createTime) {
+        this.createTime = createTime;
+    }
+}
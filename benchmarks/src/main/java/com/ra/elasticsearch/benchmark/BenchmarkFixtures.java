@@ -0,0 +1,126 @@
+package com.ra.elasticsearch.benchmark;
+
+import com.ra.elasticsearch.codec.FastjsonSourceCodec;
+import com.ra.elasticsearch.codec.ParallelDecoder;
+import com.ra.elasticsearch.config.ElasticsearchClients;
+import com.ra.elasticsearch.config.ElasticsearchProperties;
+import com.ra.elasticsearch.id.DefaultIdStrategy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.text.Text;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.fetch.subphase.highlight.HighlightField;
+import org.springframework.beans.SimpleTypeConverter;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * 基准测试的service与数据构造, service的依赖按属性默认值手工注入, 不启动spring容器也不连接集群
+ */
+public final class BenchmarkFixtures {
+    public static final String HIGHLIGHT_FIELD = "title";
+    private static final String ALPHABET = "abcdefghijklmnopqrstuvwxyz0123456789 ";
+
+    private BenchmarkFixtures() {
+    }
+
+    public static BenchSearchService newService() throws Exception {
+        ElasticsearchProperties properties = defaultProperties();
+        BenchSearchService service = new BenchSearchService();
+        inject(service, "elasticsearchProperties", properties);
+        inject(service, "elasticsearchClients", new ElasticsearchClients(null, null));
+        inject(service, "sourceCodec", new FastjsonSourceCodec());
+        inject(service, "idStrategy", new DefaultIdStrategy(properties.getIdHashAlgorithm()));
+        inject(service, "parallelDecoder", new ParallelDecoder(properties.isParallelDecodeEnabled(),
+                properties.getParallelDecodeThreshold(), properties.getParallelDecodeParallelism()));
+        inject(service, "meterRegistry", new SimpleMeterRegistry());
+        service.init();
+        return service;
+    }
+
+    /**
+     * 按@Value中的默认值填充属性, 与未配置时的线上行为一致
+     */
+    public static ElasticsearchProperties defaultProperties() throws Exception {
+        ElasticsearchProperties properties = new ElasticsearchProperties();
+        SimpleTypeConverter converter = new SimpleTypeConverter();
+        for (Field field : ElasticsearchProperties.class.getDeclaredFields()) {
+            Value value = field.getAnnotation(Value.class);
+            if (value == null) {
+                continue;
+            }
+            String expression = value.value();
+            int separator = expression.indexOf(':');
+            if (separator < 0) {
+                continue;
+            }
+            String defaultValue = expression.substring(separator + 1, expression.length() - 1);
+            field.setAccessible(true);
+            field.set(properties, converter.convertIfNecessary(defaultValue, field.getType()));
+        }
+        return properties;
+    }
+
+    public static BenchVO newVO(int seq, int idLength, int bodyLength, Random random) {
+        BenchVO vo = new BenchVO();
+        String prefix = String.valueOf(seq);
+        vo.setId(idLength <= prefix.length() ? prefix : prefix + randomString(idLength - prefix.length(), random));
+        vo.setTitle(randomString(32, random));
+        vo.setBody(randomString(bodyLength, random));
+        vo.setTags(Arrays.asList(randomString(8, random), randomString(8, random), randomString(8, random)));
+        vo.setPrice(random.nextDouble() * 1000);
+        vo.setStock(random.nextInt(10000));
+        vo.setCreateTime(new Date(1600000000000L + random.nextInt()));
+        return vo;
+    }
+
+    /**
+     * 构造与查询返回一致的命中结果, _source为VO编码后的字节
+     */
+    public static SearchHit[] newHits(BenchSearchService service, int hitCount, int bodyLength, boolean highlight) {
+        Random random = new Random(hitCount * 31L + bodyLength);
+        SearchHit[] hits = new SearchHit[hitCount];
+        for (int i = 0; i < hitCount; i++) {
+            BenchVO vo = newVO(i, 16, bodyLength, random);
+            SearchHit hit = new SearchHit(i, vo.getId(), new Text("type"), Collections.emptyMap());
+            hit.sourceRef(new BytesArray(service.sourceCodec().encode(vo)));
+            if (highlight) {
+                Map<String, HighlightField> highlightFields = new HashMap<>();
+                highlightFields.put(HIGHLIGHT_FIELD, new HighlightField(HIGHLIGHT_FIELD,
+                        new Text[]{new Text("<em>" + vo.getTitle() + "</em>")}));
+                hit.highlightFields(highlightFields);
+            }
+            hits[i] = hit;
+        }
+        return hits;
+    }
+
+    private static String randomString(int length, Random random) {
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            builder.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return builder.toString();
+    }
+
+    private static void inject(Object target, String fieldName, Object value) throws Exception {
+        for (Class<?> clazz = target.getClass(); clazz != null; clazz = clazz.getSuperclass()) {
+            try {
+                Field field = clazz.getDeclaredField(fieldName);
+                field.setAccessible(true);
+                field.set(target, value);
+                return;
+            } catch (NoSuchFieldException e) {
+                // 在父类中继续查找
+            }
+        }
+        throw new NoSuchFieldException(fieldName);
+    }
+}
@@ -0,0 +1,87 @@
+package com.ra.elasticsearch.benchmark;
+
+import com.ra.elasticsearch.bulk.AdaptiveBulkSizer;
+import com.ra.elasticsearch.bulk.BulkBuffer;
+import com.ra.elasticsearch.codec.SourceCodec;
+import com.ra.elasticsearch.config.ElasticsearchProperties;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.index.VersionType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * initIndex中一页VO构造bulk请求的开销: searchId、_source编码、IndexRequest及按条数/字节切分bulk
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BulkBuildBenchmark {
+
+    @Param({"500"})
+    private int pageSize;
+
+    @Param({"128", "4096"})
+    private int bodyLength;
+
+    private BenchSearchService service;
+    private List<BenchVO> page;
+    private AdaptiveBulkSizer bulkSizer;
+    private long bulkMaxBytes;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        service = BenchmarkFixtures.newService();
+        ElasticsearchProperties properties = BenchmarkFixtures.defaultProperties();
+        bulkSizer = new AdaptiveBulkSizer(properties.getBulkMinActions(), properties.getBulkMaxActions(),
+                properties.getBulkInitialActions(), properties.getBulkTargetLatencyMillis());
+        bulkMaxBytes = properties.getBulkMaxBytes();
+        Random random = new Random(pageSize * 31L + bodyLength);
+        page = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            page.add(BenchmarkFixtures.newVO(i, 16, bodyLength, random));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        service.destroy();
+    }
+
+    @Benchmark
+    public void buildBulkRequests(Blackhole blackhole) {
+        SourceCodec codec = service.sourceCodec();
+        BulkBuffer bulkBuffer = new BulkBuffer(bulkSizer, bulkMaxBytes, 0);
+        long version = System.currentTimeMillis();
+        for (BenchVO vo : page) {
+            IndexRequest indexRequest = new IndexRequest("bench").id(service.searchId(vo))
+                    .source(codec.encode(vo), codec.contentType())
+                    .versionType(VersionType.EXTERNAL).version(version);
+            BulkRequest full = bulkBuffer.add(indexRequest);
+            if (full != null) {
+                blackhole.consume(full);
+            }
+        }
+        blackhole.consume(bulkBuffer.flush());
+    }
+}
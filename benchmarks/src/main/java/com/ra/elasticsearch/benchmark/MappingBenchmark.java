@@ -0,0 +1,33 @@
+package com.ra.elasticsearch.benchmark;
+
+import com.ra.elasticsearch.utils.IndexBuildUtil;
+import org.elasticsearch.common.Strings;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * reInitMapping中按VO注解生成映射的开销, 不包含建索引请求
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MappingBenchmark {
+
+    @Benchmark
+    public String buildCreateMapping() throws IOException {
+        return Strings.toString(IndexBuildUtil.buildCreateMapping(BenchVO.class));
+    }
+}
@@ -0,0 +1,52 @@
+package com.ra.elasticsearch.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * getSearchId, idLength超过512字节时走摘要分支
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SearchIdBenchmark {
+
+    @Param({"16", "1024"})
+    private int idLength;
+
+    private BenchSearchService service;
+    private BenchVO vo;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        service = BenchmarkFixtures.newService();
+        vo = BenchmarkFixtures.newVO(1, idLength, 128, new Random(idLength));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        service.destroy();
+    }
+
+    @Benchmark
+    public String getSearchId() {
+        return service.searchId(vo);
+    }
+}
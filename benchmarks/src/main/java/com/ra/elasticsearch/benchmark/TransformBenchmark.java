@@ -0,0 +1,66 @@
+package com.ra.elasticsearch.benchmark;
+
+import org.elasticsearch.search.SearchHit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 命中结果解码为VO, 按命中数与文档大小参数化
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransformBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int hitCount;
+
+    @Param({"128", "4096"})
+    private int bodyLength;
+
+    private BenchSearchService service;
+    private SearchHit[] hits;
+    private SearchHit[] highlightHits;
+    private List<String> highlightFieldNames;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        service = BenchmarkFixtures.newService();
+        hits = BenchmarkFixtures.newHits(service, hitCount, bodyLength, false);
+        highlightHits = BenchmarkFixtures.newHits(service, hitCount, bodyLength, true);
+        highlightFieldNames = Collections.singletonList(BenchmarkFixtures.HIGHLIGHT_FIELD);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        service.destroy();
+    }
+
+    @Benchmark
+    public List<BenchVO> transformSearchResultData() {
+        return service.transformSearchResultData(hits);
+    }
+
+    @Benchmark
+    public List<BenchVO> transformSearchResultDataWithHighlight() {
+        return service.transformSearchResultDataWithHighlight(highlightHits, highlightFieldNames);
+    }
+}
@@ -4,9 +4,15 @@ import java.lang.annotation.*;
 
 /**
  * Created by lizhen on 2017/10/25.
+ * 多个字段带此注解时按order组合为文档id
  */
 @Target({ElementType.FIELD})
 @Retention(RetentionPolicy.RUNTIME)
 @Documented
 public @interface SearchId {
+
+    /**
+     * 组合id中的字段顺序
+     */
+    int order() default 0;
 }
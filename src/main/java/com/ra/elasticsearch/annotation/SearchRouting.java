@@ -0,0 +1,12 @@
+package com.ra.elasticsearch.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * 文档路由字段, 写入与删除时以该字段值作为routing, 使同一路由键的文档落在同一分片
+ */
+@Target({ElementType.FIELD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface SearchRouting {
+}
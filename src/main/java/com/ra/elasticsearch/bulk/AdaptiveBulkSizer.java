@@ -0,0 +1,47 @@
+package com.ra.elasticsearch.bulk;
+
+/**
+ * 根据bulk请求耗时自适应调整每批文档数
+ * 耗时低于目标时缓慢增大批次, 超过目标时按比例缩小, 被集群拒绝(429)时减半
+ */
+public class AdaptiveBulkSizer {
+
+    private final int minActions;
+    private final int maxActions;
+    private final long targetLatencyMillis;
+    private volatile int batchActions;
+
+    public AdaptiveBulkSizer(int minActions, int maxActions, int initialActions, long targetLatencyMillis) {
+        this.minActions = Math.max(1, minActions);
+        this.maxActions = Math.max(this.minActions, maxActions);
+        this.targetLatencyMillis = targetLatencyMillis;
+        this.batchActions = clamp(initialActions);
+    }
+
+    public int getBatchActions() {
+        return batchActions;
+    }
+
+    /**
+     * 根据一次bulk请求的文档数和耗时调整批次大小
+     */
+    public synchronized void onCompleted(int actions, long tookMillis) {
+        if (targetLatencyMillis <= 0 || actions < batchActions / 2) {
+            // 未攒满的批次(定时刷新或收尾)不能反映批次大小对耗时的影响
+            return;
+        }
+        if (tookMillis > targetLatencyMillis) {
+            batchActions = clamp((int) (batchActions * Math.max(0.5, (double) targetLatencyMillis / tookMillis)));
+        } else if (tookMillis < targetLatencyMillis * 8 / 10) {
+            batchActions = clamp(batchActions + Math.max(1, batchActions / 10));
+        }
+    }
+
+    public synchronized void onRejected() {
+        batchActions = clamp(batchActions / 2);
+    }
+
+    private int clamp(int actions) {
+        return Math.min(maxActions, Math.max(minActions, actions));
+    }
+}
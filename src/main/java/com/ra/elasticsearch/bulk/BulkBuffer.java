@@ -0,0 +1,63 @@
+package com.ra.elasticsearch.bulk;
+
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BulkRequest;
+
+/**
+ * bulk请求缓冲, 达到文档数、预估字节数或刷新间隔任一条件时产出一个bulk请求
+ * 非线程安全, 每个写入线程持有自己的实例
+ */
+public class BulkBuffer {
+
+    private final AdaptiveBulkSizer bulkSizer;
+    private final long maxBytes;
+    private final long flushIntervalMillis;
+    private BulkRequest bulkRequest;
+    private long firstAddMillis;
+
+    public BulkBuffer(AdaptiveBulkSizer bulkSizer, long maxBytes, long flushIntervalMillis) {
+        this.bulkSizer = bulkSizer;
+        this.maxBytes = maxBytes;
+        this.flushIntervalMillis = flushIntervalMillis;
+    }
+
+    /**
+     * 加入一个写请求, 达到刷新条件时返回待发送的bulk请求, 否则返回null
+     */
+    public BulkRequest add(DocWriteRequest<?> request) {
+        if (bulkRequest == null) {
+            bulkRequest = new BulkRequest();
+            firstAddMillis = System.currentTimeMillis();
+        }
+        bulkRequest.add(request);
+        if (bulkRequest.numberOfActions() >= bulkSizer.getBatchActions()
+                || (maxBytes > 0 && bulkRequest.estimatedSizeInBytes() >= maxBytes)) {
+            return flush();
+        }
+        return flushIfExpired();
+    }
+
+    /**
+     * 缓冲时间超过刷新间隔时返回待发送的bulk请求, 否则返回null
+     */
+    public BulkRequest flushIfExpired() {
+        if (bulkRequest != null && flushIntervalMillis > 0
+                && System.currentTimeMillis() - firstAddMillis >= flushIntervalMillis) {
+            return flush();
+        }
+        return null;
+    }
+
+    /**
+     * 取出缓冲中的全部请求, 缓冲为空时返回null
+     */
+    public BulkRequest flush() {
+        BulkRequest ret = bulkRequest;
+        bulkRequest = null;
+        return ret;
+    }
+
+    public long getFlushIntervalMillis() {
+        return flushIntervalMillis;
+    }
+}
@@ -0,0 +1,161 @@
+package com.ra.elasticsearch.bulk;
+
+import org.elasticsearch.ElasticsearchStatusException;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.ResponseException;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.rest.RestStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 发送bulk请求
+ * 被集群拒绝(429)的文档按指数退避加随机抖动只重试失败部分, 并限制同时在途的请求字节数
+ */
+public class BulkSender {
+
+    private static final int KB = 1024;
+    private final BulkExecutor bulkExecutor;
+    private final AdaptiveBulkSizer bulkSizer;
+    private final String name;
+    private final int maxRetries;
+    private final long backoffMillis;
+    private final long maxBackoffMillis;
+    private final int maxInFlightKb;
+    private final Semaphore inFlightKb;
+    private Logger logger = LoggerFactory.getLogger(BulkSender.class);
+
+    public BulkSender(RestHighLevelClient client, AdaptiveBulkSizer bulkSizer, String name, int maxRetries,
+                      long backoffMillis, long maxBackoffMillis, long maxInFlightBytes) {
+        this(bulkRequest -> client.bulk(bulkRequest, RequestOptions.DEFAULT), bulkSizer, name, maxRetries, backoffMillis,
+                maxBackoffMillis, maxInFlightBytes);
+    }
+
+    BulkSender(BulkExecutor bulkExecutor, AdaptiveBulkSizer bulkSizer, String name, int maxRetries,
+               long backoffMillis, long maxBackoffMillis, long maxInFlightBytes) {
+        this.bulkExecutor = bulkExecutor;
+        this.bulkSizer = bulkSizer;
+        this.name = name;
+        this.maxRetries = maxRetries;
+        this.backoffMillis = backoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.maxInFlightKb = (int) Math.min(Integer.MAX_VALUE, Math.max(1, maxInFlightBytes / KB));
+        this.inFlightKb = new Semaphore(this.maxInFlightKb, true);
+    }
+
+    /**
+     * 发送bulk请求, 返回结果中的item顺序及itemId与原请求一一对应
+     */
+    public BulkResponse send(BulkRequest bulkRequest) throws IOException, InterruptedException {
+        int permits = (int) Math.min(maxInFlightKb, Math.max(1, bulkRequest.estimatedSizeInBytes() / KB));
+        inFlightKb.acquire(permits);
+        try {
+            return sendWithRetry(bulkRequest);
+        } finally {
+            inFlightKb.release(permits);
+        }
+    }
+
+    private BulkResponse sendWithRetry(BulkRequest bulkRequest) throws IOException, InterruptedException {
+        List<DocWriteRequest<?>> requests = bulkRequest.requests();
+        BulkItemResponse[] items = new BulkItemResponse[requests.size()];
+        int[] positions = null;
+        BulkRequest current = bulkRequest;
+        long tookMillis = 0;
+        for (int attempt = 0; ; attempt++) {
+            BulkResponse bulkResponse;
+            try {
+                bulkResponse = bulkExecutor.bulk(current);
+            } catch (ElasticsearchStatusException | ResponseException e) {
+                if (!isRejected(e) || attempt >= maxRetries) {
+                    throw e;
+                }
+                logger.warn("[ES BULK REJECTED] index: {}, actions: {}, attempt: {}", name, current.numberOfActions(), attempt + 1);
+                bulkSizer.onRejected();
+                backoff(attempt);
+                continue;
+            }
+            long took = bulkResponse.getTook().millis();
+            tookMillis += took;
+            bulkSizer.onCompleted(current.numberOfActions(), took);
+
+            BulkRequest retryRequest = null;
+            List<Integer> retryPositions = null;
+            for (BulkItemResponse item : bulkResponse.getItems()) {
+                int position = positions == null ? item.getItemId() : positions[item.getItemId()];
+                items[position] = positions == null ? item : reposition(item, position);
+                if (item.isFailed() && item.getFailure().getStatus() == RestStatus.TOO_MANY_REQUESTS && attempt < maxRetries) {
+                    if (retryRequest == null) {
+                        retryRequest = new BulkRequest().setRefreshPolicy(bulkRequest.getRefreshPolicy());
+                        retryPositions = new ArrayList<>();
+                    }
+                    retryRequest.add(requests.get(position));
+                    retryPositions.add(position);
+                }
+            }
+            if (retryRequest == null) {
+                break;
+            }
+            logger.warn("[ES BULK REJECTED] index: {}, rejected items: {}, attempt: {}", name, retryRequest.numberOfActions(), attempt + 1);
+            bulkSizer.onRejected();
+            backoff(attempt);
+            current = retryRequest;
+            positions = retryPositions.stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        BulkResponse ret = new BulkResponse(items, tookMillis);
+        if (ret.hasFailures()) {
+            for (BulkItemResponse item : items) {
+                if (item.isFailed()) {
+                    logger.error("[ES BULK ERROR] index: {},errorMsg:{}", name, item.getFailureMessage());
+                }
+            }
+        }
+        return ret;
+    }
+
+    private BulkItemResponse reposition(BulkItemResponse item, int position) {
+        if (item.isFailed()) {
+            return new BulkItemResponse(position, item.getOpType(), item.getFailure());
+        }
+        return new BulkItemResponse(position, item.getOpType(), item.getResponse());
+    }
+
+    private boolean isRejected(Exception e) {
+        if (e instanceof ElasticsearchStatusException) {
+            return ((ElasticsearchStatusException) e).status() == RestStatus.TOO_MANY_REQUESTS;
+        }
+        return ((ResponseException) e).getResponse().getStatusLine().getStatusCode() == RestStatus.TOO_MANY_REQUESTS.getStatus();
+    }
+
+    private void backoff(int attempt) throws InterruptedException {
+        long delay = Math.min(maxBackoffMillis, backoffMillis << Math.min(attempt, 20));
+        Thread.sleep(delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1));
+    }
+
+    /**
+     * 已发出尚未完成的bulk请求字节数, 按KB取整
+     */
+    public long getInFlightBytes() {
+        return (long) (maxInFlightKb - inFlightKb.availablePermits()) * KB;
+    }
+
+    public AdaptiveBulkSizer getBulkSizer() {
+        return bulkSizer;
+    }
+
+    @FunctionalInterface
+    interface BulkExecutor {
+        BulkResponse bulk(BulkRequest bulkRequest) throws IOException;
+    }
+}
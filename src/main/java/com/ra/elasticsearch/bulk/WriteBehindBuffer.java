@@ -0,0 +1,123 @@
+package com.ra.elasticsearch.bulk;
+
+import com.ra.elasticsearch.enums.WriteOperation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * 异步写缓冲, 窗口期内同一id的多次index/delete合并为最后一次, 按窗口批量交给flusher写入
+ */
+public class WriteBehindBuffer {
+
+    private final String name;
+    private final Consumer<List<PendingWrite>> flusher;
+    private final ConcurrentHashMap<String, PendingWrite> pending = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+    /**
+     * 最近一次分配的外部版本号, 同一毫秒内合并过的id在下个窗口再次写入时版本号也不会回退
+     */
+    private final AtomicLong lastVersion = new AtomicLong();
+    private Logger logger = LoggerFactory.getLogger(WriteBehindBuffer.class);
+
+    public WriteBehindBuffer(String name, long windowMillis, Consumer<List<PendingWrite>> flusher) {
+        this.name = name;
+        this.flusher = flusher;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "es-write-behind-" + name);
+            thread.setDaemon(true);
+            return thread;
+        });
+        long window = Math.max(1, windowMillis);
+        scheduler.scheduleWithFixedDelay(this::flush, window, window, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 提交一次写操作, 返回的future在合并后的写入完成时结束
+     */
+    public CompletableFuture<Void> submit(String id, WriteOperation operation) {
+        PendingWrite pendingWrite = pending.compute(id, (key, prev) -> {
+            long version = lastVersion.accumulateAndGet(System.currentTimeMillis(), (last, now) -> Math.max(last + 1, now));
+            if (prev == null) {
+                return new PendingWrite(id, operation, version);
+            }
+            prev.operation = operation;
+            prev.version = version;
+            return prev;
+        });
+        return pendingWrite.future;
+    }
+
+    /**
+     * 取出当前窗口内的全部写操作并交给flusher
+     */
+    public void flush() {
+        List<PendingWrite> batch = new ArrayList<>();
+        for (String id : pending.keySet()) {
+            PendingWrite pendingWrite = pending.remove(id);
+            if (pendingWrite != null) {
+                batch.add(pendingWrite);
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            flusher.accept(batch);
+        } catch (Exception e) {
+            logger.error("[ES WRITE BEHIND ERROR] index: {}, errorMsg: {}", name, e.getMessage(), e);
+            batch.forEach(pendingWrite -> pendingWrite.future.completeExceptionally(e));
+        }
+    }
+
+    public void close() {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    public static class PendingWrite {
+        private final String id;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+        private WriteOperation operation;
+        private long version;
+
+        PendingWrite(String id, WriteOperation operation, long version) {
+            this.id = id;
+            this.operation = operation;
+            this.version = version;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public WriteOperation getOperation() {
+            return operation;
+        }
+
+        /**
+         * 合并后最后一次写操作的外部版本号
+         */
+        public long getVersion() {
+            return version;
+        }
+
+        public CompletableFuture<Void> getFuture() {
+            return future;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.ra.elasticsearch.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 单个索引按文档id缓存的VO, 按条数及写入后存活时间淘汰, 写入对应id时失效, 不存在的文档不缓存
+ * 缓存的VO被多次读取共享, 调用方不能修改
+ */
+public class DocumentCache<T> implements MeterBinder {
+
+    private final String indexName;
+    private final Cache<String, T> cache;
+    /**
+     * 每次失效加一, 读取期间发生失效时结果不写入缓存
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    public DocumentCache(String indexName, long maxSize, long expireMillis) {
+        this.indexName = indexName;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(expireMillis, TimeUnit.MILLISECONDS)
+                .recordStats()
+                .build();
+    }
+
+    public T getIfPresent(String id) {
+        return cache.getIfPresent(id);
+    }
+
+    public Map<String, T> getAllPresent(Collection<String> ids) {
+        return cache.getAllPresent(ids);
+    }
+
+    /**
+     * 读取开始前获取当前版本, 写入缓存时传入
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    public void putAll(Map<String, T> documents, long readGeneration) {
+        if (generation.get() != readGeneration) {
+            return;
+        }
+        cache.putAll(documents);
+        if (generation.get() != readGeneration) {
+            cache.invalidateAll(documents.keySet());
+        }
+    }
+
+    public void invalidate(String id) {
+        generation.incrementAndGet();
+        cache.invalidate(id);
+    }
+
+    public void invalidateAll(Collection<String> ids) {
+        generation.incrementAndGet();
+        cache.invalidateAll(ids);
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry meterRegistry) {
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, indexName + ".doc");
+    }
+}
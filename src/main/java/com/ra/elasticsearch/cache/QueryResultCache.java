@@ -0,0 +1,90 @@
+package com.ra.elasticsearch.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 单个索引的查询结果缓存, 以routing及序列化后的查询条件为key缓存解码后的VO列表
+ * 淘汰策略为Caffeine的W-TinyLFU, 按缓存的VO总数及写入后存活时间淘汰, 索引有写入或别名切换时整体失效
+ * 缓存的VO被多次查询共享, 调用方不能修改
+ */
+public class QueryResultCache<T> implements MeterBinder {
+
+    private final String indexName;
+    private final Cache<String, List<T>> cache;
+    /**
+     * 每次失效加一, 查询期间发生失效时结果不写入缓存, 避免失效前发出的查询把旧结果写回
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    public QueryResultCache(String indexName, long maxDocs, long expireMillis) {
+        this.indexName = indexName;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxDocs)
+                .weigher((String key, List<T> value) -> value.size() + 1)
+                .expireAfterWrite(expireMillis, TimeUnit.MILLISECONDS)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * 命中时直接返回缓存结果, 否则执行查询并缓存
+     */
+    public List<T> get(String routing, SearchSourceBuilder source, Loader<T> loader) throws IOException {
+        String key = buildKey(routing, source);
+        List<T> result = cache.getIfPresent(key);
+        if (result != null) {
+            return result;
+        }
+        long current = generation.get();
+        result = Collections.unmodifiableList(loader.load());
+        if (generation.get() == current) {
+            cache.put(key, result);
+            if (generation.get() != current) {
+                cache.invalidate(key);
+            }
+        }
+        return result;
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry meterRegistry) {
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, indexName);
+    }
+
+    /**
+     * SearchSourceBuilder序列化后的json字段顺序固定, 相同查询条件得到相同的key
+     */
+    private String buildKey(String routing, SearchSourceBuilder source) {
+        return (routing == null ? "" : routing) + "|" + source.toString();
+    }
+
+    @FunctionalInterface
+    public interface Loader<T> {
+        List<T> load() throws IOException;
+    }
+}
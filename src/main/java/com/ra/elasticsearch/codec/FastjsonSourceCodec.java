@@ -0,0 +1,28 @@
+package com.ra.elasticsearch.codec;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.serializer.SerializerFeature;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.bytes.BytesReference;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 基于fastjson字节API的编解码, 单段的_source直接在原数组上解析, 不复制也不生成String
+ */
+public class FastjsonSourceCodec implements SourceCodec {
+
+    @Override
+    public <T> T decode(BytesReference source, Class<T> clazz) {
+        if (source == null) {
+            return null;
+        }
+        BytesRef bytesRef = source.toBytesRef();
+        return JSON.parseObject(bytesRef.bytes, bytesRef.offset, bytesRef.length, StandardCharsets.UTF_8, clazz);
+    }
+
+    @Override
+    public byte[] encode(Object vo) {
+        return JSON.toJSONBytes(vo, SerializerFeature.DisableCircularReferenceDetect);
+    }
+}
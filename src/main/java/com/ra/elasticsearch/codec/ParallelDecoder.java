@@ -0,0 +1,47 @@
+package com.ra.elasticsearch.codec;
+
+import org.elasticsearch.search.SearchHit;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 命中数超过阈值时在独立的有界ForkJoinPool中并行解码, 结果保持原有顺序
+ * 所有service共享同一个线程池, 不占用公共ForkJoinPool
+ */
+public class ParallelDecoder {
+
+    private final boolean enabled;
+    private final int threshold;
+    private final ForkJoinPool pool;
+
+    public ParallelDecoder(boolean enabled, int threshold, int parallelism) {
+        this.enabled = enabled;
+        this.threshold = threshold;
+        this.pool = enabled ? new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors()) : null;
+    }
+
+    /**
+     * 解码命中结果, 返回列表与hits一一对应
+     */
+    public <T> List<T> decode(SearchHit[] hits, Function<SearchHit, T> decoder) {
+        if (!enabled || hits.length < threshold) {
+            List<T> ret = new ArrayList<>(hits.length);
+            for (SearchHit hit : hits) {
+                ret.add(decoder.apply(hit));
+            }
+            return ret;
+        }
+        return pool.submit(() -> Arrays.stream(hits).parallel().map(decoder).collect(Collectors.toList())).join();
+    }
+
+    public void close() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.ra.elasticsearch.codec;
+
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.xcontent.XContentType;
+
+/**
+ * VO与索引文档_source之间的编解码, 直接读写字节避免经过String中转
+ * 可通过声明SourceCodec类型的bean替换默认的fastjson实现
+ */
+public interface SourceCodec {
+
+    /**
+     * 从_source字节解码为VO, source为null时返回null
+     */
+    <T> T decode(BytesReference source, Class<T> clazz);
+
+    /**
+     * 将VO编码为_source字节
+     */
+    byte[] encode(Object vo);
+
+    /**
+     * 编码结果的内容类型
+     */
+    default XContentType contentType() {
+        return XContentType.JSON;
+    }
+}
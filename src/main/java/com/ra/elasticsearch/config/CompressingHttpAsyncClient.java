@@ -0,0 +1,100 @@
+package com.ra.elasticsearch.config;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpException;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpRequest;
+import org.apache.http.concurrent.BasicFuture;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClientBuilder;
+import org.apache.http.nio.client.methods.HttpAsyncMethods;
+import org.apache.http.nio.entity.NByteArrayEntity;
+import org.apache.http.nio.protocol.HttpAsyncRequestProducer;
+import org.apache.http.nio.protocol.HttpAsyncResponseConsumer;
+import org.apache.http.protocol.HttpContext;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 以gzip压缩请求体的HttpAsyncClient
+ * 异步客户端在执行请求拦截器前已从实体取得内容生产者, 拦截器中替换实体只会改变请求头而不会改变发送的内容,
+ * 因此在提交前压缩实体并重新生成请求生产者; 重试复用同一请求, 已设置编码的实体不再压缩
+ */
+public class CompressingHttpAsyncClient extends CloseableHttpAsyncClient {
+    private static final String GZIP = "gzip";
+    private final CloseableHttpAsyncClient delegate;
+    private final int minBytes;
+
+    public CompressingHttpAsyncClient(CloseableHttpAsyncClient delegate, int minBytes) {
+        this.delegate = delegate;
+        this.minBytes = minBytes;
+    }
+
+    /**
+     * 包装RestClient传入的builder, 只替换build结果, 其余配置仍由原builder生效
+     */
+    public static HttpAsyncClientBuilder wrap(HttpAsyncClientBuilder builder, int minBytes) {
+        return new HttpAsyncClientBuilder() {
+            @Override
+            public CloseableHttpAsyncClient build() {
+                return new CompressingHttpAsyncClient(builder.build(), minBytes);
+            }
+        };
+    }
+
+    @Override
+    public boolean isRunning() {
+        return delegate.isRunning();
+    }
+
+    @Override
+    public void start() {
+        delegate.start();
+    }
+
+    @Override
+    public void close() throws IOException {
+        delegate.close();
+    }
+
+    @Override
+    public <T> Future<T> execute(HttpAsyncRequestProducer requestProducer, HttpAsyncResponseConsumer<T> responseConsumer,
+                                 HttpContext context, FutureCallback<T> callback) {
+        HttpAsyncRequestProducer producer;
+        try {
+            producer = compress(requestProducer);
+        } catch (IOException | HttpException e) {
+            BasicFuture<T> future = new BasicFuture<>(callback);
+            future.failed(e);
+            return future;
+        }
+        return delegate.execute(producer, responseConsumer, context, callback);
+    }
+
+    private HttpAsyncRequestProducer compress(HttpAsyncRequestProducer requestProducer) throws IOException, HttpException {
+        HttpRequest request = requestProducer.generateRequest();
+        if (!(request instanceof HttpEntityEnclosingRequest) || request.containsHeader(HttpHeaders.CONTENT_ENCODING)) {
+            return requestProducer;
+        }
+        HttpEntityEnclosingRequest entityRequest = (HttpEntityEnclosingRequest) request;
+        HttpEntity entity = entityRequest.getEntity();
+        if (entity == null || entity.getContentEncoding() != null || !entity.isRepeatable()
+                || (entity.getContentLength() >= 0 && entity.getContentLength() < minBytes)) {
+            return requestProducer;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, (int) Math.min(entity.getContentLength() / 4, Integer.MAX_VALUE)));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            entity.writeTo(gzip);
+        }
+        NByteArrayEntity compressed = new NByteArrayEntity(out.toByteArray());
+        compressed.setContentType(entity.getContentType());
+        compressed.setContentEncoding(GZIP);
+        entityRequest.setEntity(compressed);
+        return HttpAsyncMethods.create(requestProducer.getTarget(), request);
+    }
+}
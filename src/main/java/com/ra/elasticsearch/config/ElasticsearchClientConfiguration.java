@@ -1,28 +1,167 @@
 package com.ra.elasticsearch.config;
 
+import com.ra.elasticsearch.codec.FastjsonSourceCodec;
+import com.ra.elasticsearch.codec.ParallelDecoder;
+import com.ra.elasticsearch.codec.SourceCodec;
+import com.ra.elasticsearch.id.DefaultIdStrategy;
+import com.ra.elasticsearch.id.IdStrategy;
+import com.ra.elasticsearch.metrics.ConnectionPoolMetrics;
+import com.ra.elasticsearch.rebuild.CheckpointStore;
+import com.ra.elasticsearch.rebuild.FileCheckpointStore;
+import com.ra.elasticsearch.service.MultiSearchExecutor;
 import org.apache.http.HttpHost;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.conn.NoopIOSessionStrategy;
+import org.apache.http.nio.conn.SchemeIOSessionStrategy;
+import org.apache.http.nio.conn.ssl.SSLIOSessionStrategy;
+import org.apache.http.nio.reactor.IOReactorException;
 import org.elasticsearch.client.RestClient;
 import org.elasticsearch.client.RestClientBuilder;
 import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.client.sniff.ElasticsearchNodesSniffer;
+import org.elasticsearch.client.sniff.SniffOnFailureListener;
+import org.elasticsearch.client.sniff.Sniffer;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.util.StringUtils;
 
+import javax.annotation.PreDestroy;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.stream.Collectors;
 
 @Configuration
 @EnableConfigurationProperties({ElasticsearchProperties.class})
 public class ElasticsearchClientConfiguration {
     public static final String DEFAULT_SEPARATOR = ",";
+    public static final String DEFAULT_CLIENT_NAME = "default";
+    public static final String READ_CLIENT_NAME = "read";
+    public static final String WRITE_CLIENT_NAME = "write";
+    private static final String HTTPS_SCHEMA = "https";
     @Autowired
     private ElasticsearchProperties elasticsearchProperties;
+    private final List<Sniffer> sniffers = new CopyOnWriteArrayList<>();
 
     @Bean
+    @Primary
     public RestHighLevelClient restHighLevelClient() {
+        return createClient(elasticsearchProperties.isSeparateClients() ? READ_CLIENT_NAME : DEFAULT_CLIENT_NAME,
+                elasticsearchProperties.getReadNodeSelector(), elasticsearchProperties.getMaxConnTotal(),
+                elasticsearchProperties.getMaxConnPerRoute(), elasticsearchProperties.getIoThreadCount());
+    }
+
+    /**
+     * 开启读写分离时, 写客户端使用独立的连接池、I/O线程与节点选择, 未配置的连接数沿用读客户端配置
+     */
+    @Bean(destroyMethod = "close")
+    public ElasticsearchClients elasticsearchClients() {
+        RestHighLevelClient readClient = restHighLevelClient();
+        if (!elasticsearchProperties.isSeparateClients()) {
+            return new ElasticsearchClients(readClient, readClient);
+        }
+        RestHighLevelClient writeClient = createClient(WRITE_CLIENT_NAME, elasticsearchProperties.getWriteNodeSelector(),
+                orDefault(elasticsearchProperties.getWriteMaxConnTotal(), elasticsearchProperties.getMaxConnTotal()),
+                orDefault(elasticsearchProperties.getWriteMaxConnPerRoute(), elasticsearchProperties.getMaxConnPerRoute()),
+                orDefault(elasticsearchProperties.getWriteIoThreadCount(), elasticsearchProperties.getIoThreadCount()));
+        return new ElasticsearchClients(readClient, writeClient);
+    }
+
+    /**
+     * 批量查询使用读客户端
+     */
+    @Bean
+    public MultiSearchExecutor multiSearchExecutor() {
+        return new MultiSearchExecutor(restHighLevelClient(), elasticsearchProperties.getMsearchMaxConcurrentSearches());
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public CheckpointStore checkpointStore() {
+        return new FileCheckpointStore(elasticsearchProperties.getCheckpointDir());
+    }
+
+    @Bean
+    public ConnectionPoolMetrics connectionPoolMetrics() {
+        return new ConnectionPoolMetrics();
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public SourceCodec sourceCodec() {
+        return new FastjsonSourceCodec();
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public IdStrategy idStrategy() {
+        return new DefaultIdStrategy(elasticsearchProperties.getIdHashAlgorithm());
+    }
+
+    @Bean(destroyMethod = "close")
+    public ParallelDecoder parallelDecoder() {
+        return new ParallelDecoder(elasticsearchProperties.isParallelDecodeEnabled(),
+                elasticsearchProperties.getParallelDecodeThreshold(), elasticsearchProperties.getParallelDecodeParallelism());
+    }
+
+    @PreDestroy
+    public void closeSniffers() {
+        sniffers.forEach(Sniffer::close);
+    }
+
+    private RestHighLevelClient createClient(String clientName, String nodeSelector, int maxConnTotal,
+                                             int maxConnPerRoute, int ioThreadCount) {
+        RestClientBuilder builder = RestClient.builder(parseHosts());
+        builder.setNodeSelector(NodeSelectors.parse(nodeSelector));
+        builder.setRequestConfigCallback(requestConfigBuilder -> requestConfigBuilder
+                .setConnectTimeout(elasticsearchProperties.getConnectTimeoutMillis())
+                .setSocketTimeout(elasticsearchProperties.getSocketTimeoutMillis())
+                .setConnectionRequestTimeout(elasticsearchProperties.getConnectionRequestTimeoutMillis()));
+        builder.setHttpClientConfigCallback(httpClientBuilder -> {
+            PoolingNHttpClientConnectionManager connectionManager = createConnectionManager(maxConnTotal, maxConnPerRoute,
+                    ioThreadCount);
+            connectionPoolMetrics().register(clientName, connectionManager);
+            httpClientBuilder.setConnectionManager(connectionManager)
+                    .setKeepAliveStrategy((response, context) -> {
+                        long keepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+                        return keepAlive > 0 ? Math.min(keepAlive, elasticsearchProperties.getKeepAliveMillis())
+                                : elasticsearchProperties.getKeepAliveMillis();
+                    });
+            if (elasticsearchProperties.isRequestCompressionEnabled()) {
+                return CompressingHttpAsyncClient.wrap(httpClientBuilder, elasticsearchProperties.getRequestCompressionMinBytes());
+            }
+            return httpClientBuilder;
+        });
+        SniffOnFailureListener sniffOnFailureListener = null;
+        if (elasticsearchProperties.isSniffEnabled()) {
+            sniffOnFailureListener = new SniffOnFailureListener();
+            builder.setFailureListener(sniffOnFailureListener);
+        }
+        RestHighLevelClient client = new RestHighLevelClient(builder);
+        if (sniffOnFailureListener != null) {
+            RestClient restClient = client.getLowLevelClient();
+            ElasticsearchNodesSniffer.Scheme scheme = HTTPS_SCHEMA.equalsIgnoreCase(elasticsearchProperties.getSchema())
+                    ? ElasticsearchNodesSniffer.Scheme.HTTPS : ElasticsearchNodesSniffer.Scheme.HTTP;
+            Sniffer sniffer = Sniffer.builder(restClient)
+                    .setNodesSniffer(new ElasticsearchNodesSniffer(restClient, ElasticsearchNodesSniffer.DEFAULT_SNIFF_REQUEST_TIMEOUT, scheme))
+                    .setSniffIntervalMillis(elasticsearchProperties.getSniffIntervalMillis())
+                    .setSniffAfterFailureDelayMillis(elasticsearchProperties.getSniffAfterFailureDelayMillis())
+                    .build();
+            sniffOnFailureListener.setSniffer(sniffer);
+            sniffers.add(sniffer);
+        }
+        return client;
+    }
+
+    private HttpHost[] parseHosts() {
         String hosts = elasticsearchProperties.getHosts();
         String[] hostArray = hosts.split(DEFAULT_SEPARATOR);
         String schema = elasticsearchProperties.getSchema();
@@ -37,8 +176,34 @@ public class ElasticsearchClientConfiguration {
             return new HttpHost(split[0], 9200);
         }).collect(Collectors.toList());
         HttpHost[] httpHosts = new HttpHost[httpHostList.size()];
-        RestClientBuilder builder = RestClient.builder(httpHostList.toArray(httpHosts));
-        return new RestHighLevelClient(builder);
+        return httpHostList.toArray(httpHosts);
+    }
+
+    private PoolingNHttpClientConnectionManager createConnectionManager(int maxConnTotal, int maxConnPerRoute,
+                                                                        int ioThreadCount) {
+        IOReactorConfig.Builder ioReactorConfig = IOReactorConfig.custom()
+                .setConnectTimeout(elasticsearchProperties.getConnectTimeoutMillis())
+                .setSoTimeout(elasticsearchProperties.getSocketTimeoutMillis());
+        if (ioThreadCount > 0) {
+            ioReactorConfig.setIoThreadCount(ioThreadCount);
+        }
+        try {
+            PoolingNHttpClientConnectionManager connectionManager = new PoolingNHttpClientConnectionManager(
+                    new DefaultConnectingIOReactor(ioReactorConfig.build()),
+                    RegistryBuilder.<SchemeIOSessionStrategy>create()
+                            .register("http", NoopIOSessionStrategy.INSTANCE)
+                            .register(HTTPS_SCHEMA, SSLIOSessionStrategy.getSystemDefaultStrategy())
+                            .build());
+            connectionManager.setMaxTotal(maxConnTotal);
+            connectionManager.setDefaultMaxPerRoute(maxConnPerRoute);
+            return connectionManager;
+        } catch (IOReactorException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static int orDefault(int value, int defaultValue) {
+        return value > 0 ? value : defaultValue;
     }
 
 }
@@ -0,0 +1,51 @@
+package com.ra.elasticsearch.config;
+
+import org.elasticsearch.client.RestHighLevelClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * 读写客户端, 未开启读写分离时读写共用默认客户端
+ * 写客户端用于实时写入与初始化索引的批量写入, 拥有独立的连接池与I/O线程, 避免重建索引时影响查询延迟
+ */
+public class ElasticsearchClients implements Closeable {
+    private Logger logger = LoggerFactory.getLogger(ElasticsearchClients.class);
+    private final RestHighLevelClient readClient;
+    private final RestHighLevelClient writeClient;
+
+    public ElasticsearchClients(RestHighLevelClient readClient, RestHighLevelClient writeClient) {
+        this.readClient = readClient;
+        this.writeClient = writeClient;
+    }
+
+    public RestHighLevelClient read() {
+        return readClient;
+    }
+
+    public RestHighLevelClient write() {
+        return writeClient;
+    }
+
+    public boolean isSeparate() {
+        return readClient != writeClient;
+    }
+
+    /**
+     * 只关闭独立的写客户端, 默认客户端由容器负责关闭
+     */
+    @Override
+    public void close() {
+        if (!isSeparate()) {
+            return;
+        }
+        try {
+            writeClient.close();
+        } catch (IOException e) {
+            logger.error("close write client error", e);
+        }
+    }
+
+}
@@ -0,0 +1,25 @@
+package com.ra.elasticsearch.config;
+
+import com.ra.elasticsearch.metrics.ConnectionPoolMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 没有引入actuator时使用内存中的注册中心, 引入actuator时由actuator提供注册中心并自动绑定MeterBinder
+ */
+@Configuration
+@AutoConfigureAfter(name = "org.springframework.boot.actuate.autoconfigure.metrics.CompositeMeterRegistryAutoConfiguration")
+public class ElasticsearchMetricsConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean(MeterRegistry.class)
+    public SimpleMeterRegistry elasticsearchMeterRegistry(ConnectionPoolMetrics connectionPoolMetrics) {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        connectionPoolMetrics.bindTo(meterRegistry);
+        return meterRegistry;
+    }
+}
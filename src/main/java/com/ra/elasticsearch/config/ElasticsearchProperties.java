@@ -17,6 +17,144 @@ public class ElasticsearchProperties {
     private String refreshInterval;
     @Value("${refreshInterval:true}")
     private String refreshPolicy;
+    @Value("${serializeConcurrency:4}")
+    private int serializeConcurrency;
+    @Value("${bulkConcurrency:4}")
+    private int bulkConcurrency;
+    @Value("${pipelineQueueCapacity:50}")
+    private int pipelineQueueCapacity;
+    @Value("${bulkMinActions:100}")
+    private int bulkMinActions;
+    @Value("${bulkMaxActions:5000}")
+    private int bulkMaxActions;
+    @Value("${bulkInitialActions:500}")
+    private int bulkInitialActions;
+    @Value("${bulkMaxBytes:5242880}")
+    private long bulkMaxBytes;
+    @Value("${bulkFlushIntervalMillis:1000}")
+    private long bulkFlushIntervalMillis;
+    @Value("${bulkTargetLatencyMillis:1000}")
+    private long bulkTargetLatencyMillis;
+    @Value("${bulkMaxRetries:5}")
+    private int bulkMaxRetries;
+    @Value("${bulkBackoffMillis:100}")
+    private long bulkBackoffMillis;
+    @Value("${bulkMaxBackoffMillis:10000}")
+    private long bulkMaxBackoffMillis;
+    @Value("${bulkMaxInFlightBytes:104857600}")
+    private long bulkMaxInFlightBytes;
+    @Value("${writeBehindEnabled:false}")
+    private boolean writeBehindEnabled;
+    @Value("${writeBehindWindowMillis:200}")
+    private long writeBehindWindowMillis;
+    @Value("${parallelDecodeEnabled:false}")
+    private boolean parallelDecodeEnabled;
+    @Value("${parallelDecodeThreshold:1000}")
+    private int parallelDecodeThreshold;
+    @Value("${parallelDecodeParallelism:0}")
+    private int parallelDecodeParallelism;
+    @Value("${scrollKeepAlive:1m}")
+    private String scrollKeepAlive;
+    @Value("${bulkLoadProfileEnabled:true}")
+    private boolean bulkLoadProfileEnabled;
+    @Value("${bulkLoadShards:0}")
+    private int bulkLoadShards;
+    @Value("${routingPartitionSize:0}")
+    private int routingPartitionSize;
+    @Value("${rolloverCheckIntervalMillis:60000}")
+    private long rolloverCheckIntervalMillis;
+    @Value("${queryCacheEnabled:false}")
+    private boolean queryCacheEnabled;
+    @Value("${queryCacheMaxDocs:100000}")
+    private long queryCacheMaxDocs;
+    @Value("${queryCacheExpireMillis:60000}")
+    private long queryCacheExpireMillis;
+    @Value("${mgetBatchWindowMicros:200}")
+    private long mgetBatchWindowMicros;
+    @Value("${mgetBatchMaxSize:100}")
+    private int mgetBatchMaxSize;
+    @Value("${documentCacheEnabled:false}")
+    private boolean documentCacheEnabled;
+    @Value("${documentCacheMaxSize:10000}")
+    private long documentCacheMaxSize;
+    @Value("${documentCacheExpireMillis:60000}")
+    private long documentCacheExpireMillis;
+    @Value("${checkpointDir:es-rebuild-checkpoint}")
+    private String checkpointDir;
+    @Value("${checkpointIntervalMillis:5000}")
+    private long checkpointIntervalMillis;
+    @Value("${rebuildDocCountTolerance:0}")
+    private float rebuildDocCountTolerance;
+    @Value("${rebuildJournalMaxEntries:1000000}")
+    private long rebuildJournalMaxEntries;
+    @Value("${deltaSyncEnabled:false}")
+    private boolean deltaSyncEnabled;
+    @Value("${idHashAlgorithm:murmur3}")
+    private String idHashAlgorithm;
+    @Value("${msearchMaxConcurrentSearches:0}")
+    private int msearchMaxConcurrentSearches;
+    @Value("${bulkLoadReplicas:0}")
+    private int bulkLoadReplicas;
+    @Value("${bulkLoadRefreshInterval:-1}")
+    private String bulkLoadRefreshInterval;
+    @Value("${bulkLoadTranslogDurability:async}")
+    private String bulkLoadTranslogDurability;
+    @Value("${servingReplicas:-1}")
+    private int servingReplicas;
+    @Value("${servingTranslogDurability:}")
+    private String servingTranslogDurability;
+    @Value("${forceMergeMaxSegments:0}")
+    private int forceMergeMaxSegments;
+    @Value("${waitForGreen:false}")
+    private boolean waitForGreen;
+    @Value("${waitForGreenTimeout:10m}")
+    private String waitForGreenTimeout;
+    @Value("${mappingUpdateByQuery:true}")
+    private boolean mappingUpdateByQuery;
+    @Value("${taskPollIntervalMillis:1000}")
+    private long taskPollIntervalMillis;
+    @Value("${reindexSlices:auto}")
+    private String reindexSlices;
+    @Value("${reindexRequestsPerSecond:-1}")
+    private float reindexRequestsPerSecond;
+    @Value("${reindexBatchSize:1000}")
+    private int reindexBatchSize;
+    @Value("${maxConnTotal:100}")
+    private int maxConnTotal;
+    @Value("${maxConnPerRoute:50}")
+    private int maxConnPerRoute;
+    @Value("${ioThreadCount:0}")
+    private int ioThreadCount;
+    @Value("${connectTimeoutMillis:1000}")
+    private int connectTimeoutMillis;
+    @Value("${socketTimeoutMillis:30000}")
+    private int socketTimeoutMillis;
+    @Value("${connectionRequestTimeoutMillis:-1}")
+    private int connectionRequestTimeoutMillis;
+    @Value("${keepAliveMillis:60000}")
+    private long keepAliveMillis;
+    @Value("${requestCompressionEnabled:false}")
+    private boolean requestCompressionEnabled;
+    @Value("${requestCompressionMinBytes:1024}")
+    private int requestCompressionMinBytes;
+    @Value("${sniffEnabled:false}")
+    private boolean sniffEnabled;
+    @Value("${sniffIntervalMillis:300000}")
+    private int sniffIntervalMillis;
+    @Value("${sniffAfterFailureDelayMillis:60000}")
+    private int sniffAfterFailureDelayMillis;
+    @Value("${separateClients:false}")
+    private boolean separateClients;
+    @Value("${readNodeSelector:any}")
+    private String readNodeSelector;
+    @Value("${writeNodeSelector:any}")
+    private String writeNodeSelector;
+    @Value("${writeMaxConnTotal:0}")
+    private int writeMaxConnTotal;
+    @Value("${writeMaxConnPerRoute:0}")
+    private int writeMaxConnPerRoute;
+    @Value("${writeIoThreadCount:0}")
+    private int writeIoThreadCount;
 
     public String getHosts() {
         return hosts;
@@ -57,4 +195,556 @@ public class ElasticsearchProperties {
     public void setRefreshPolicy(String refreshPolicy) {
         this.refreshPolicy = refreshPolicy;
     }
+
+    public int getSerializeConcurrency() {
+        return serializeConcurrency;
+    }
+
+    public void setSerializeConcurrency(int serializeConcurrency) {
+        this.serializeConcurrency = serializeConcurrency;
+    }
+
+    public int getBulkConcurrency() {
+        return bulkConcurrency;
+    }
+
+    public void setBulkConcurrency(int bulkConcurrency) {
+        this.bulkConcurrency = bulkConcurrency;
+    }
+
+    public int getPipelineQueueCapacity() {
+        return pipelineQueueCapacity;
+    }
+
+    public void setPipelineQueueCapacity(int pipelineQueueCapacity) {
+        this.pipelineQueueCapacity = pipelineQueueCapacity;
+    }
+
+    public int getBulkMinActions() {
+        return bulkMinActions;
+    }
+
+    public void setBulkMinActions(int bulkMinActions) {
+        this.bulkMinActions = bulkMinActions;
+    }
+
+    public int getBulkMaxActions() {
+        return bulkMaxActions;
+    }
+
+    public void setBulkMaxActions(int bulkMaxActions) {
+        this.bulkMaxActions = bulkMaxActions;
+    }
+
+    public int getBulkInitialActions() {
+        return bulkInitialActions;
+    }
+
+    public void setBulkInitialActions(int bulkInitialActions) {
+        this.bulkInitialActions = bulkInitialActions;
+    }
+
+    public long getBulkMaxBytes() {
+        return bulkMaxBytes;
+    }
+
+    public void setBulkMaxBytes(long bulkMaxBytes) {
+        this.bulkMaxBytes = bulkMaxBytes;
+    }
+
+    public long getBulkFlushIntervalMillis() {
+        return bulkFlushIntervalMillis;
+    }
+
+    public void setBulkFlushIntervalMillis(long bulkFlushIntervalMillis) {
+        this.bulkFlushIntervalMillis = bulkFlushIntervalMillis;
+    }
+
+    public long getBulkTargetLatencyMillis() {
+        return bulkTargetLatencyMillis;
+    }
+
+    public void setBulkTargetLatencyMillis(long bulkTargetLatencyMillis) {
+        this.bulkTargetLatencyMillis = bulkTargetLatencyMillis;
+    }
+
+    public int getBulkMaxRetries() {
+        return bulkMaxRetries;
+    }
+
+    public void setBulkMaxRetries(int bulkMaxRetries) {
+        this.bulkMaxRetries = bulkMaxRetries;
+    }
+
+    public long getBulkBackoffMillis() {
+        return bulkBackoffMillis;
+    }
+
+    public void setBulkBackoffMillis(long bulkBackoffMillis) {
+        this.bulkBackoffMillis = bulkBackoffMillis;
+    }
+
+    public long getBulkMaxBackoffMillis() {
+        return bulkMaxBackoffMillis;
+    }
+
+    public void setBulkMaxBackoffMillis(long bulkMaxBackoffMillis) {
+        this.bulkMaxBackoffMillis = bulkMaxBackoffMillis;
+    }
+
+    public long getBulkMaxInFlightBytes() {
+        return bulkMaxInFlightBytes;
+    }
+
+    public void setBulkMaxInFlightBytes(long bulkMaxInFlightBytes) {
+        this.bulkMaxInFlightBytes = bulkMaxInFlightBytes;
+    }
+
+    public boolean isWriteBehindEnabled() {
+        return writeBehindEnabled;
+    }
+
+    public void setWriteBehindEnabled(boolean writeBehindEnabled) {
+        this.writeBehindEnabled = writeBehindEnabled;
+    }
+
+    public long getWriteBehindWindowMillis() {
+        return writeBehindWindowMillis;
+    }
+
+    public void setWriteBehindWindowMillis(long writeBehindWindowMillis) {
+        this.writeBehindWindowMillis = writeBehindWindowMillis;
+    }
+
+    public boolean isParallelDecodeEnabled() {
+        return parallelDecodeEnabled;
+    }
+
+    public void setParallelDecodeEnabled(boolean parallelDecodeEnabled) {
+        this.parallelDecodeEnabled = parallelDecodeEnabled;
+    }
+
+    public int getParallelDecodeThreshold() {
+        return parallelDecodeThreshold;
+    }
+
+    public void setParallelDecodeThreshold(int parallelDecodeThreshold) {
+        this.parallelDecodeThreshold = parallelDecodeThreshold;
+    }
+
+    public int getParallelDecodeParallelism() {
+        return parallelDecodeParallelism;
+    }
+
+    public void setParallelDecodeParallelism(int parallelDecodeParallelism) {
+        this.parallelDecodeParallelism = parallelDecodeParallelism;
+    }
+
+    public String getScrollKeepAlive() {
+        return scrollKeepAlive;
+    }
+
+    public void setScrollKeepAlive(String scrollKeepAlive) {
+        this.scrollKeepAlive = scrollKeepAlive;
+    }
+
+    public boolean isBulkLoadProfileEnabled() {
+        return bulkLoadProfileEnabled;
+    }
+
+    public void setBulkLoadProfileEnabled(boolean bulkLoadProfileEnabled) {
+        this.bulkLoadProfileEnabled = bulkLoadProfileEnabled;
+    }
+
+    public int getBulkLoadShards() {
+        return bulkLoadShards;
+    }
+
+    public void setBulkLoadShards(int bulkLoadShards) {
+        this.bulkLoadShards = bulkLoadShards;
+    }
+
+    public int getBulkLoadReplicas() {
+        return bulkLoadReplicas;
+    }
+
+    public void setBulkLoadReplicas(int bulkLoadReplicas) {
+        this.bulkLoadReplicas = bulkLoadReplicas;
+    }
+
+    public String getBulkLoadRefreshInterval() {
+        return bulkLoadRefreshInterval;
+    }
+
+    public void setBulkLoadRefreshInterval(String bulkLoadRefreshInterval) {
+        this.bulkLoadRefreshInterval = bulkLoadRefreshInterval;
+    }
+
+    public String getBulkLoadTranslogDurability() {
+        return bulkLoadTranslogDurability;
+    }
+
+    public void setBulkLoadTranslogDurability(String bulkLoadTranslogDurability) {
+        this.bulkLoadTranslogDurability = bulkLoadTranslogDurability;
+    }
+
+    public int getServingReplicas() {
+        return servingReplicas;
+    }
+
+    public void setServingReplicas(int servingReplicas) {
+        this.servingReplicas = servingReplicas;
+    }
+
+    public String getServingTranslogDurability() {
+        return servingTranslogDurability;
+    }
+
+    public void setServingTranslogDurability(String servingTranslogDurability) {
+        this.servingTranslogDurability = servingTranslogDurability;
+    }
+
+    public int getForceMergeMaxSegments() {
+        return forceMergeMaxSegments;
+    }
+
+    public void setForceMergeMaxSegments(int forceMergeMaxSegments) {
+        this.forceMergeMaxSegments = forceMergeMaxSegments;
+    }
+
+    public boolean isWaitForGreen() {
+        return waitForGreen;
+    }
+
+    public void setWaitForGreen(boolean waitForGreen) {
+        this.waitForGreen = waitForGreen;
+    }
+
+    public String getWaitForGreenTimeout() {
+        return waitForGreenTimeout;
+    }
+
+    public void setWaitForGreenTimeout(String waitForGreenTimeout) {
+        this.waitForGreenTimeout = waitForGreenTimeout;
+    }
+
+    public int getMaxConnTotal() {
+        return maxConnTotal;
+    }
+
+    public void setMaxConnTotal(int maxConnTotal) {
+        this.maxConnTotal = maxConnTotal;
+    }
+
+    public int getMaxConnPerRoute() {
+        return maxConnPerRoute;
+    }
+
+    public void setMaxConnPerRoute(int maxConnPerRoute) {
+        this.maxConnPerRoute = maxConnPerRoute;
+    }
+
+    public int getIoThreadCount() {
+        return ioThreadCount;
+    }
+
+    public void setIoThreadCount(int ioThreadCount) {
+        this.ioThreadCount = ioThreadCount;
+    }
+
+    public int getConnectTimeoutMillis() {
+        return connectTimeoutMillis;
+    }
+
+    public void setConnectTimeoutMillis(int connectTimeoutMillis) {
+        this.connectTimeoutMillis = connectTimeoutMillis;
+    }
+
+    public int getSocketTimeoutMillis() {
+        return socketTimeoutMillis;
+    }
+
+    public void setSocketTimeoutMillis(int socketTimeoutMillis) {
+        this.socketTimeoutMillis = socketTimeoutMillis;
+    }
+
+    public int getConnectionRequestTimeoutMillis() {
+        return connectionRequestTimeoutMillis;
+    }
+
+    public void setConnectionRequestTimeoutMillis(int connectionRequestTimeoutMillis) {
+        this.connectionRequestTimeoutMillis = connectionRequestTimeoutMillis;
+    }
+
+    public long getKeepAliveMillis() {
+        return keepAliveMillis;
+    }
+
+    public void setKeepAliveMillis(long keepAliveMillis) {
+        this.keepAliveMillis = keepAliveMillis;
+    }
+
+    public boolean isSniffEnabled() {
+        return sniffEnabled;
+    }
+
+    public void setSniffEnabled(boolean sniffEnabled) {
+        this.sniffEnabled = sniffEnabled;
+    }
+
+    public int getSniffIntervalMillis() {
+        return sniffIntervalMillis;
+    }
+
+    public void setSniffIntervalMillis(int sniffIntervalMillis) {
+        this.sniffIntervalMillis = sniffIntervalMillis;
+    }
+
+    public int getSniffAfterFailureDelayMillis() {
+        return sniffAfterFailureDelayMillis;
+    }
+
+    public void setSniffAfterFailureDelayMillis(int sniffAfterFailureDelayMillis) {
+        this.sniffAfterFailureDelayMillis = sniffAfterFailureDelayMillis;
+    }
+
+    public boolean isSeparateClients() {
+        return separateClients;
+    }
+
+    public void setSeparateClients(boolean separateClients) {
+        this.separateClients = separateClients;
+    }
+
+    public String getReadNodeSelector() {
+        return readNodeSelector;
+    }
+
+    public void setReadNodeSelector(String readNodeSelector) {
+        this.readNodeSelector = readNodeSelector;
+    }
+
+    public String getWriteNodeSelector() {
+        return writeNodeSelector;
+    }
+
+    public void setWriteNodeSelector(String writeNodeSelector) {
+        this.writeNodeSelector = writeNodeSelector;
+    }
+
+    public int getWriteMaxConnTotal() {
+        return writeMaxConnTotal;
+    }
+
+    public void setWriteMaxConnTotal(int writeMaxConnTotal) {
+        this.writeMaxConnTotal = writeMaxConnTotal;
+    }
+
+    public int getWriteMaxConnPerRoute() {
+        return writeMaxConnPerRoute;
+    }
+
+    public void setWriteMaxConnPerRoute(int writeMaxConnPerRoute) {
+        this.writeMaxConnPerRoute = writeMaxConnPerRoute;
+    }
+
+    public int getWriteIoThreadCount() {
+        return writeIoThreadCount;
+    }
+
+    public void setWriteIoThreadCount(int writeIoThreadCount) {
+        this.writeIoThreadCount = writeIoThreadCount;
+    }
+
+    public boolean isMappingUpdateByQuery() {
+        return mappingUpdateByQuery;
+    }
+
+    public void setMappingUpdateByQuery(boolean mappingUpdateByQuery) {
+        this.mappingUpdateByQuery = mappingUpdateByQuery;
+    }
+
+    public long getTaskPollIntervalMillis() {
+        return taskPollIntervalMillis;
+    }
+
+    public void setTaskPollIntervalMillis(long taskPollIntervalMillis) {
+        this.taskPollIntervalMillis = taskPollIntervalMillis;
+    }
+
+    public String getReindexSlices() {
+        return reindexSlices;
+    }
+
+    public void setReindexSlices(String reindexSlices) {
+        this.reindexSlices = reindexSlices;
+    }
+
+    public float getReindexRequestsPerSecond() {
+        return reindexRequestsPerSecond;
+    }
+
+    public void setReindexRequestsPerSecond(float reindexRequestsPerSecond) {
+        this.reindexRequestsPerSecond = reindexRequestsPerSecond;
+    }
+
+    public int getReindexBatchSize() {
+        return reindexBatchSize;
+    }
+
+    public void setReindexBatchSize(int reindexBatchSize) {
+        this.reindexBatchSize = reindexBatchSize;
+    }
+
+    public int getRoutingPartitionSize() {
+        return routingPartitionSize;
+    }
+
+    public void setRoutingPartitionSize(int routingPartitionSize) {
+        this.routingPartitionSize = routingPartitionSize;
+    }
+
+    public long getRolloverCheckIntervalMillis() {
+        return rolloverCheckIntervalMillis;
+    }
+
+    public void setRolloverCheckIntervalMillis(long rolloverCheckIntervalMillis) {
+        this.rolloverCheckIntervalMillis = rolloverCheckIntervalMillis;
+    }
+
+    public boolean isQueryCacheEnabled() {
+        return queryCacheEnabled;
+    }
+
+    public void setQueryCacheEnabled(boolean queryCacheEnabled) {
+        this.queryCacheEnabled = queryCacheEnabled;
+    }
+
+    public long getQueryCacheMaxDocs() {
+        return queryCacheMaxDocs;
+    }
+
+    public void setQueryCacheMaxDocs(long queryCacheMaxDocs) {
+        this.queryCacheMaxDocs = queryCacheMaxDocs;
+    }
+
+    public long getQueryCacheExpireMillis() {
+        return queryCacheExpireMillis;
+    }
+
+    public void setQueryCacheExpireMillis(long queryCacheExpireMillis) {
+        this.queryCacheExpireMillis = queryCacheExpireMillis;
+    }
+
+    public long getMgetBatchWindowMicros() {
+        return mgetBatchWindowMicros;
+    }
+
+    public void setMgetBatchWindowMicros(long mgetBatchWindowMicros) {
+        this.mgetBatchWindowMicros = mgetBatchWindowMicros;
+    }
+
+    public int getMgetBatchMaxSize() {
+        return mgetBatchMaxSize;
+    }
+
+    public void setMgetBatchMaxSize(int mgetBatchMaxSize) {
+        this.mgetBatchMaxSize = mgetBatchMaxSize;
+    }
+
+    public boolean isDocumentCacheEnabled() {
+        return documentCacheEnabled;
+    }
+
+    public void setDocumentCacheEnabled(boolean documentCacheEnabled) {
+        this.documentCacheEnabled = documentCacheEnabled;
+    }
+
+    public long getDocumentCacheMaxSize() {
+        return documentCacheMaxSize;
+    }
+
+    public void setDocumentCacheMaxSize(long documentCacheMaxSize) {
+        this.documentCacheMaxSize = documentCacheMaxSize;
+    }
+
+    public long getDocumentCacheExpireMillis() {
+        return documentCacheExpireMillis;
+    }
+
+    public void setDocumentCacheExpireMillis(long documentCacheExpireMillis) {
+        this.documentCacheExpireMillis = documentCacheExpireMillis;
+    }
+
+    public int getMsearchMaxConcurrentSearches() {
+        return msearchMaxConcurrentSearches;
+    }
+
+    public void setMsearchMaxConcurrentSearches(int msearchMaxConcurrentSearches) {
+        this.msearchMaxConcurrentSearches = msearchMaxConcurrentSearches;
+    }
+
+    public String getCheckpointDir() {
+        return checkpointDir;
+    }
+
+    public void setCheckpointDir(String checkpointDir) {
+        this.checkpointDir = checkpointDir;
+    }
+
+    public long getCheckpointIntervalMillis() {
+        return checkpointIntervalMillis;
+    }
+
+    public void setCheckpointIntervalMillis(long checkpointIntervalMillis) {
+        this.checkpointIntervalMillis = checkpointIntervalMillis;
+    }
+
+    public float getRebuildDocCountTolerance() {
+        return rebuildDocCountTolerance;
+    }
+
+    public void setRebuildDocCountTolerance(float rebuildDocCountTolerance) {
+        this.rebuildDocCountTolerance = rebuildDocCountTolerance;
+    }
+
+    public boolean isDeltaSyncEnabled() {
+        return deltaSyncEnabled;
+    }
+
+    public void setDeltaSyncEnabled(boolean deltaSyncEnabled) {
+        this.deltaSyncEnabled = deltaSyncEnabled;
+    }
+
+    public String getIdHashAlgorithm() {
+        return idHashAlgorithm;
+    }
+
+    public void setIdHashAlgorithm(String idHashAlgorithm) {
+        this.idHashAlgorithm = idHashAlgorithm;
+    }
+
+    public long getRebuildJournalMaxEntries() {
+        return rebuildJournalMaxEntries;
+    }
+
+    public void setRebuildJournalMaxEntries(long rebuildJournalMaxEntries) {
+        this.rebuildJournalMaxEntries = rebuildJournalMaxEntries;
+    }
+
+    public boolean isRequestCompressionEnabled() {
+        return requestCompressionEnabled;
+    }
+
+    public void setRequestCompressionEnabled(boolean requestCompressionEnabled) {
+        this.requestCompressionEnabled = requestCompressionEnabled;
+    }
+
+    public int getRequestCompressionMinBytes() {
+        return requestCompressionMinBytes;
+    }
+
+    public void setRequestCompressionMinBytes(int requestCompressionMinBytes) {
+        this.requestCompressionMinBytes = requestCompressionMinBytes;
+    }
 }
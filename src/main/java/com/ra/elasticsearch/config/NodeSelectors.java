@@ -0,0 +1,84 @@
+package com.ra.elasticsearch.config;
+
+import org.elasticsearch.client.HasAttributeNodeSelector;
+import org.elasticsearch.client.Node;
+import org.elasticsearch.client.NodeSelector;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * 解析节点选择配置, 多个条件以逗号分隔且需同时满足:
+ * any, skip_dedicated_masters, data, ingest, coordinating, attr:key=value
+ * 节点角色只有开启嗅探后才可知, 角色未知的节点不会被过滤
+ */
+public final class NodeSelectors {
+    private static final String ANY = "any";
+    private static final String SKIP_DEDICATED_MASTERS = "skip_dedicated_masters";
+    private static final String DATA = "data";
+    private static final String INGEST = "ingest";
+    private static final String COORDINATING = "coordinating";
+    private static final String ATTR_PREFIX = "attr:";
+
+    private NodeSelectors() {
+    }
+
+    public static NodeSelector parse(String spec) {
+        if (StringUtils.isEmpty(spec)) {
+            return NodeSelector.ANY;
+        }
+        List<NodeSelector> selectors = new ArrayList<>();
+        for (String part : spec.split(ElasticsearchClientConfiguration.DEFAULT_SEPARATOR)) {
+            String name = part.trim();
+            if (name.isEmpty() || ANY.equalsIgnoreCase(name)) {
+                continue;
+            }
+            selectors.add(parseOne(name));
+        }
+        if (selectors.isEmpty()) {
+            return NodeSelector.ANY;
+        }
+        if (selectors.size() == 1) {
+            return selectors.get(0);
+        }
+        return nodes -> selectors.forEach(selector -> selector.select(nodes));
+    }
+
+    private static NodeSelector parseOne(String name) {
+        if (SKIP_DEDICATED_MASTERS.equalsIgnoreCase(name)) {
+            return NodeSelector.SKIP_DEDICATED_MASTERS;
+        }
+        if (DATA.equalsIgnoreCase(name)) {
+            return byRole(Node.Roles::isData);
+        }
+        if (INGEST.equalsIgnoreCase(name)) {
+            return byRole(Node.Roles::isIngest);
+        }
+        if (COORDINATING.equalsIgnoreCase(name)) {
+            return byRole(roles -> !roles.isData() && !roles.isIngest() && !roles.isMasterEligible());
+        }
+        if (name.startsWith(ATTR_PREFIX)) {
+            String[] attr = name.substring(ATTR_PREFIX.length()).split("=", 2);
+            if (attr.length == 2) {
+                return new HasAttributeNodeSelector(attr[0].trim(), attr[1].trim());
+            }
+        }
+        throw new IllegalArgumentException("unknown node selector: " + name);
+    }
+
+    private static NodeSelector byRole(Predicate<Node.Roles> predicate) {
+        return nodes -> {
+            Iterator<Node> iterator = nodes.iterator();
+            while (iterator.hasNext()) {
+                Node.Roles roles = iterator.next().getRoles();
+                if (roles != null && !predicate.test(roles)) {
+                    iterator.remove();
+                }
+            }
+        };
+    }
+
+}
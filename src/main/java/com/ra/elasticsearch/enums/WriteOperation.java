@@ -0,0 +1,8 @@
+package com.ra.elasticsearch.enums;
+
+/**
+ * 单文档写操作类型
+ */
+public enum WriteOperation {
+    INDEX, DELETE
+}
@@ -0,0 +1,89 @@
+package com.ra.elasticsearch.id;
+
+import org.apache.lucene.util.UnicodeUtil;
+import org.elasticsearch.common.hash.MessageDigests;
+import org.elasticsearch.common.hash.MurmurHash3;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * 默认的文档id生成: 整数直接转十进制, 其他值取toString, 组合id按字段顺序以'|'拼接并转义分隔符
+ * 超过ES文档id上限512字节时改用UTF-8字节的murmur3-128或SHA-1摘要, 以base64url编码
+ */
+public class DefaultIdStrategy implements IdStrategy {
+    public static final String MURMUR3 = "murmur3";
+    public static final String SHA1 = "sha1";
+    public static final int MAX_ID_BYTES = 512;
+    private static final char SEPARATOR = '|';
+    private static final char ESCAPE = '\\';
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private final boolean sha1;
+
+    public DefaultIdStrategy(String hashAlgorithm) {
+        if (MURMUR3.equalsIgnoreCase(hashAlgorithm)) {
+            this.sha1 = false;
+        } else if (SHA1.equalsIgnoreCase(hashAlgorithm)) {
+            this.sha1 = true;
+        } else {
+            throw new IllegalArgumentException("unsupported id hash algorithm: " + hashAlgorithm);
+        }
+    }
+
+    @Override
+    public String toId(Object value) {
+        if (value == null) {
+            throw new IllegalArgumentException("searchId is null");
+        }
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return Long.toString(((Number) value).longValue());
+        }
+        return limit(value.toString());
+    }
+
+    @Override
+    public String toCompositeId(Object... values) {
+        if (values.length == 1) {
+            return toId(values[0]);
+        }
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == null) {
+                throw new IllegalArgumentException("searchId part " + i + " is null");
+            }
+            if (i > 0) {
+                builder.append(SEPARATOR);
+            }
+            String part = values[i].toString();
+            for (int j = 0; j < part.length(); j++) {
+                char c = part.charAt(j);
+                if (c == SEPARATOR || c == ESCAPE) {
+                    builder.append(ESCAPE);
+                }
+                builder.append(c);
+            }
+        }
+        return limit(builder.toString());
+    }
+
+    private String limit(String id) {
+        if (id.isEmpty()) {
+            throw new IllegalArgumentException("searchId is empty");
+        }
+        // 每个char编码后最多3字节, 短id不必计算UTF-8长度
+        if (id.length() * 3 <= MAX_ID_BYTES || UnicodeUtil.calcUTF16toUTF8Length(id, 0, id.length()) <= MAX_ID_BYTES) {
+            return id;
+        }
+        return digest(id.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String digest(byte[] bytes) {
+        if (sha1) {
+            return ENCODER.encodeToString(MessageDigests.sha1().digest(bytes));
+        }
+        MurmurHash3.Hash128 hash = MurmurHash3.hash128(bytes, 0, bytes.length, 0, new MurmurHash3.Hash128());
+        return ENCODER.encodeToString(ByteBuffer.allocate(16).putLong(hash.h1).putLong(hash.h2).array());
+    }
+}
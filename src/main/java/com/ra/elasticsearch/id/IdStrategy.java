@@ -0,0 +1,19 @@
+package com.ra.elasticsearch.id;
+
+/**
+ * 由VO的searchId字段值生成文档id, 同一值在任何进程、任何时间都必须生成相同的id
+ * 可通过声明IdStrategy类型的bean替换默认实现{@link DefaultIdStrategy}
+ */
+public interface IdStrategy {
+
+    /**
+     * 单个searchId字段的值生成文档id, 值为null时抛出IllegalArgumentException
+     */
+    String toId(Object value);
+
+    /**
+     * 组合searchId各字段的值按{@link com.ra.elasticsearch.annotation.SearchId#order()}排列生成文档id,
+     * 业务方也可以据此由字段值算出文档id用于删除或读取
+     */
+    String toCompositeId(Object... values);
+}
@@ -0,0 +1,213 @@
+package com.ra.elasticsearch.lifecycle;
+
+import com.ra.elasticsearch.utils.IndexBuildUtil;
+import org.elasticsearch.action.admin.indices.alias.Alias;
+import org.elasticsearch.action.admin.indices.alias.get.GetAliasesRequest;
+import org.elasticsearch.action.admin.indices.create.CreateIndexRequest;
+import org.elasticsearch.action.admin.indices.delete.DeleteIndexRequest;
+import org.elasticsearch.action.admin.indices.forcemerge.ForceMergeRequest;
+import org.elasticsearch.action.admin.indices.rollover.RolloverRequest;
+import org.elasticsearch.action.admin.indices.rollover.RolloverResponse;
+import org.elasticsearch.action.admin.indices.settings.put.UpdateSettingsRequest;
+import org.elasticsearch.action.admin.indices.template.put.PutIndexTemplateRequest;
+import org.elasticsearch.action.support.master.AcknowledgedResponse;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.StringUtils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 滚动索引管理: 写入写别名指向的当前代索引, 查询读别名覆盖的全部代索引
+ * 每代索引命名为 读别名-gen-000001, 由索引模板提供映射、设置及读别名
+ */
+public class RolloverManager implements Closeable {
+    public static final String WRITE_ALIAS_SUFFIX = "_write";
+    public static final String GENERATION_INFIX = "-gen-";
+    private static final String TEMPLATE_SUFFIX = "_template";
+    private static final String FIRST_GENERATION = "000001";
+    private static final String INDEX_BLOCKS_WRITE = "index.blocks.write";
+    private Logger logger = LoggerFactory.getLogger(RolloverManager.class);
+    private final RestHighLevelClient client;
+    private final String readAlias;
+    private final String writeAlias;
+    private final String indexType;
+    private final Class<?> clazz;
+    private final RolloverPolicy policy;
+    private final Settings indexSettings;
+    private final ScheduledExecutorService scheduler;
+
+    public RolloverManager(RestHighLevelClient client, String readAlias, String indexType, Class<?> clazz,
+                           RolloverPolicy policy, Settings indexSettings) {
+        this.client = client;
+        this.readAlias = readAlias;
+        this.writeAlias = readAlias + WRITE_ALIAS_SUFFIX;
+        this.indexType = indexType;
+        this.clazz = clazz;
+        this.policy = policy;
+        this.indexSettings = indexSettings;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "es-rollover-" + readAlias);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public String getReadAlias() {
+        return readAlias;
+    }
+
+    public String getWriteAlias() {
+        return writeAlias;
+    }
+
+    /**
+     * 定时检查滚动条件
+     */
+    public void start(long checkIntervalMillis) {
+        scheduler.scheduleWithFixedDelay(this::check, checkIntervalMillis, checkIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 写入索引模板, 写别名不存在时创建第一代索引
+     */
+    public void bootstrap() throws IOException {
+        putTemplate();
+        if (!getAliasIndices(writeAlias).isEmpty()) {
+            return;
+        }
+        String firstIndex = readAlias + GENERATION_INFIX + FIRST_GENERATION;
+        client.indices().create(new CreateIndexRequest(firstIndex).alias(new Alias(writeAlias)), RequestOptions.DEFAULT);
+        logger.info("bootstrap rollover index-{}, write alias-{}", firstIndex, writeAlias);
+    }
+
+    /**
+     * 按VO当前注解更新索引模板, 只影响之后创建的代
+     */
+    public void putTemplate() throws IOException {
+        PutIndexTemplateRequest putIndexTemplateRequest = new PutIndexTemplateRequest(readAlias + TEMPLATE_SUFFIX)
+                .patterns(Collections.singletonList(readAlias + GENERATION_INFIX + "*"))
+                .settings(indexSettings)
+                .mapping(indexType, IndexBuildUtil.buildCreateMapping(clazz))
+                .alias(new Alias(readAlias));
+        AcknowledgedResponse acknowledgedResponse = client.indices().putTemplate(putIndexTemplateRequest, RequestOptions.DEFAULT);
+        if (!acknowledgedResponse.isAcknowledged()) {
+            throw new IllegalStateException("put index template not acknowledged, alias-" + readAlias);
+        }
+    }
+
+    /**
+     * 满足任一滚动条件时滚动到新一代索引, 并处理旧代索引
+     */
+    public boolean rolloverIfNeeded() throws IOException {
+        RolloverRequest rolloverRequest = new RolloverRequest(writeAlias, null);
+        boolean hasCondition = false;
+        if (!StringUtils.isEmpty(policy.getMaxAge())) {
+            rolloverRequest.addMaxIndexAgeCondition(TimeValue.parseTimeValue(policy.getMaxAge(), "rollover.maxAge"));
+            hasCondition = true;
+        }
+        if (policy.getMaxDocs() > 0) {
+            rolloverRequest.addMaxIndexDocsCondition(policy.getMaxDocs());
+            hasCondition = true;
+        }
+        if (!StringUtils.isEmpty(policy.getMaxSize())) {
+            rolloverRequest.addMaxIndexSizeCondition(ByteSizeValue.parseBytesSizeValue(policy.getMaxSize(), "rollover.maxSize"));
+            hasCondition = true;
+        }
+        if (!hasCondition) {
+            return false;
+        }
+        return rollover(rolloverRequest);
+    }
+
+    /**
+     * 无条件滚动, 用于映射不兼容时让新一代索引使用新的映射
+     */
+    public void forceRollover() throws IOException {
+        rollover(new RolloverRequest(writeAlias, null));
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    private void check() {
+        try {
+            rolloverIfNeeded();
+        } catch (Exception e) {
+            logger.error("rollover check error, alias-{}", writeAlias, e);
+        }
+    }
+
+    private boolean rollover(RolloverRequest rolloverRequest) throws IOException {
+        RolloverResponse rolloverResponse = client.indices().rollover(rolloverRequest, RequestOptions.DEFAULT);
+        if (!rolloverResponse.isRolledOver()) {
+            return false;
+        }
+        logger.info("rollover alias-{} from {} to {}, conditions {}", writeAlias, rolloverResponse.getOldIndex(),
+                rolloverResponse.getNewIndex(), rolloverResponse.getConditionStatus());
+        retireGeneration(rolloverResponse.getOldIndex());
+        pruneGenerations();
+        return true;
+    }
+
+    /**
+     * 旧代索引不再写入, 禁止写入后可合并为少量段
+     */
+    private void retireGeneration(String index) {
+        try {
+            UpdateSettingsRequest updateSettingsRequest = new UpdateSettingsRequest(index)
+                    .settings(Settings.builder().put(INDEX_BLOCKS_WRITE, true));
+            client.indices().putSettings(updateSettingsRequest, RequestOptions.DEFAULT);
+            if (policy.getForceMergeMaxSegments() > 0) {
+                client.indices().forcemerge(new ForceMergeRequest(index).maxNumSegments(policy.getForceMergeMaxSegments()),
+                        RequestOptions.DEFAULT);
+                logger.info("force merge retired index-{} to {} segments", index, policy.getForceMergeMaxSegments());
+            }
+        } catch (Exception e) {
+            logger.error("retire index-{} error", index, e);
+        }
+    }
+
+    /**
+     * 删除超过保留代数的最旧索引, 当前写索引不会被删除
+     */
+    private void pruneGenerations() throws IOException {
+        if (policy.getMaxGenerations() <= 0) {
+            return;
+        }
+        List<String> generations = new ArrayList<>();
+        for (String index : getAliasIndices(readAlias)) {
+            if (index.startsWith(readAlias + GENERATION_INFIX)) {
+                generations.add(index);
+            }
+        }
+        Collections.sort(generations);
+        generations.removeAll(getAliasIndices(writeAlias));
+        int expired = generations.size() - (policy.getMaxGenerations() - 1);
+        for (int i = 0; i < expired; i++) {
+            client.indices().delete(new DeleteIndexRequest(generations.get(i)), RequestOptions.DEFAULT);
+            logger.info("delete expired generation index-{}", generations.get(i));
+        }
+    }
+
+    private Set<String> getAliasIndices(String alias) throws IOException {
+        GetAliasesRequest getAliasesRequest = new GetAliasesRequest();
+        getAliasesRequest.aliases(alias);
+        return client.indices().getAlias(getAliasesRequest, RequestOptions.DEFAULT).getAliases().keySet();
+    }
+}
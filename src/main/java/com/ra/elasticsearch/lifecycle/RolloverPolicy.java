@@ -0,0 +1,93 @@
+package com.ra.elasticsearch.lifecycle;
+
+/**
+ * 滚动索引策略, 任一条件满足即滚动到新一代索引
+ * 适用于只追加写入的VO, 旧代索引禁止写入并可force merge, 超过保留代数的最旧索引被删除
+ */
+public class RolloverPolicy {
+
+    /**
+     * 最大存活时间, 如 1d, 为空时不按时间滚动
+     */
+    private String maxAge;
+    /**
+     * 最大文档数, 0时不按文档数滚动
+     */
+    private long maxDocs;
+    /**
+     * 最大主分片总大小, 如 50gb, 为空时不按大小滚动
+     */
+    private String maxSize;
+    /**
+     * 保留的索引代数(含当前写索引), 0时不删除
+     */
+    private int maxGenerations;
+    /**
+     * 旧代索引force merge的段数, 0时不合并
+     */
+    private int forceMergeMaxSegments;
+    /**
+     * 每代索引的主分片数, 0时使用集群默认值
+     */
+    private int shards;
+
+    public String getMaxAge() {
+        return maxAge;
+    }
+
+    public RolloverPolicy setMaxAge(String maxAge) {
+        this.maxAge = maxAge;
+        return this;
+    }
+
+    public long getMaxDocs() {
+        return maxDocs;
+    }
+
+    public RolloverPolicy setMaxDocs(long maxDocs) {
+        this.maxDocs = maxDocs;
+        return this;
+    }
+
+    public String getMaxSize() {
+        return maxSize;
+    }
+
+    public RolloverPolicy setMaxSize(String maxSize) {
+        this.maxSize = maxSize;
+        return this;
+    }
+
+    public int getMaxGenerations() {
+        return maxGenerations;
+    }
+
+    public RolloverPolicy setMaxGenerations(int maxGenerations) {
+        this.maxGenerations = maxGenerations;
+        return this;
+    }
+
+    public int getForceMergeMaxSegments() {
+        return forceMergeMaxSegments;
+    }
+
+    public RolloverPolicy setForceMergeMaxSegments(int forceMergeMaxSegments) {
+        this.forceMergeMaxSegments = forceMergeMaxSegments;
+        return this;
+    }
+
+    public int getShards() {
+        return shards;
+    }
+
+    public RolloverPolicy setShards(int shards) {
+        this.shards = shards;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "RolloverPolicy{maxAge=" + maxAge + ", maxDocs=" + maxDocs + ", maxSize=" + maxSize
+                + ", maxGenerations=" + maxGenerations + ", forceMergeMaxSegments=" + forceMergeMaxSegments + ", shards=" + shards + "}";
+    }
+}
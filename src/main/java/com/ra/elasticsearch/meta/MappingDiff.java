@@ -0,0 +1,155 @@
+package com.ra.elasticsearch.meta;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * VO注解生成的映射与线上索引映射的差异
+ * 新增字段、新增multi-field及copy_to变更可通过put mapping原地更新, 其余参数变更需要重建索引
+ */
+public class MappingDiff {
+    private static final String PROPERTIES_STRING = "properties";
+    private static final String FIELDS_STRING = "fields";
+    private static final String COPY_TO_STRING = "copy_to";
+    private static final String TYPE_STRING = "type";
+    private static final String OBJECT_STRING = "object";
+
+    private final Set<String> addedFields = new LinkedHashSet<>();
+    private final Set<String> backfillFields = new LinkedHashSet<>();
+    private final List<String> conflicts = new ArrayList<>();
+
+    private MappingDiff() {
+    }
+
+    /**
+     * 比较两份映射的properties, 线上多出的字段不影响兼容性
+     */
+    public static MappingDiff compare(Map<String, Object> expectedProperties, Map<String, Object> liveProperties) {
+        MappingDiff diff = new MappingDiff();
+        diff.compareProperties("", expectedProperties, liveProperties);
+        return diff;
+    }
+
+    /**
+     * 线上映射中不存在的字段路径
+     */
+    public Set<String> getAddedFields() {
+        return Collections.unmodifiableSet(addedFields);
+    }
+
+    /**
+     * 映射更新后需要重新索引的已有字段路径, 包括新增multi-field与copy_to变更的源字段
+     */
+    public Set<String> getBackfillFields() {
+        return Collections.unmodifiableSet(backfillFields);
+    }
+
+    public List<String> getConflicts() {
+        return Collections.unmodifiableList(conflicts);
+    }
+
+    public boolean isCompatible() {
+        return conflicts.isEmpty();
+    }
+
+    public boolean isEmpty() {
+        return addedFields.isEmpty() && backfillFields.isEmpty() && conflicts.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "MappingDiff{added=" + addedFields + ", backfill=" + backfillFields + ", conflicts=" + conflicts + "}";
+    }
+
+    @SuppressWarnings("unchecked")
+    private void compareProperties(String prefix, Map<String, Object> expectedProperties, Map<String, Object> liveProperties) {
+        if (expectedProperties == null) {
+            return;
+        }
+        for (Map.Entry<String, Object> entry : expectedProperties.entrySet()) {
+            String path = prefix + entry.getKey();
+            Object live = liveProperties == null ? null : liveProperties.get(entry.getKey());
+            if (live == null) {
+                addedFields.add(path);
+                continue;
+            }
+            compareField(path, (Map<String, Object>) entry.getValue(), (Map<String, Object>) live);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void compareField(String path, Map<String, Object> expected, Map<String, Object> live) {
+        boolean expectedObject = expected.containsKey(PROPERTIES_STRING);
+        boolean liveObject = live.containsKey(PROPERTIES_STRING) || OBJECT_STRING.equals(live.get(TYPE_STRING));
+        if (expectedObject || liveObject) {
+            if (expectedObject != liveObject || !Objects.equals(objectType(expected), objectType(live))) {
+                conflicts.add(path + ": " + objectType(live) + " -> " + objectType(expected));
+                return;
+            }
+            compareProperties(path + ".", (Map<String, Object>) expected.get(PROPERTIES_STRING),
+                    (Map<String, Object>) live.get(PROPERTIES_STRING));
+            return;
+        }
+        Set<String> keys = new LinkedHashSet<>(expected.keySet());
+        keys.addAll(live.keySet());
+        for (String key : keys) {
+            if (FIELDS_STRING.equals(key)) {
+                compareMultiFields(path, (Map<String, Object>) expected.get(FIELDS_STRING), (Map<String, Object>) live.get(FIELDS_STRING));
+            } else if (COPY_TO_STRING.equals(key)) {
+                if (!normalize(expected.get(key)).equals(normalize(live.get(key)))) {
+                    backfillFields.add(path);
+                }
+            } else if (!normalize(expected.get(key)).equals(normalize(live.get(key)))) {
+                conflicts.add(path + "." + key + ": " + live.get(key) + " -> " + expected.get(key));
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void compareMultiFields(String path, Map<String, Object> expectedFields, Map<String, Object> liveFields) {
+        if (expectedFields == null) {
+            return;
+        }
+        for (Map.Entry<String, Object> entry : expectedFields.entrySet()) {
+            Object live = liveFields == null ? null : liveFields.get(entry.getKey());
+            if (live == null) {
+                addedFields.add(path + "." + entry.getKey());
+                backfillFields.add(path);
+                continue;
+            }
+            compareField(path + "." + entry.getKey(), (Map<String, Object>) entry.getValue(), (Map<String, Object>) live);
+        }
+    }
+
+    /**
+     * object类型的映射可以省略type
+     */
+    private static Object objectType(Map<String, Object> field) {
+        Object type = field.get(TYPE_STRING);
+        return type == null ? OBJECT_STRING : type;
+    }
+
+    /**
+     * 统一单值与单元素数组, 布尔与数字按字符串比较
+     */
+    private static List<String> normalize(Object value) {
+        if (value == null) {
+            return Collections.emptyList();
+        }
+        List<String> values = new ArrayList<>();
+        if (value instanceof Collection) {
+            for (Object item : (Collection<?>) value) {
+                values.add(String.valueOf(item));
+            }
+        } else {
+            values.add(String.valueOf(value));
+        }
+        return values;
+    }
+}
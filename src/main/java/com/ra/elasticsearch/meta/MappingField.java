@@ -0,0 +1,59 @@
+package com.ra.elasticsearch.meta;
+
+import com.ra.elasticsearch.enums.ESAnalyzer;
+import com.ra.elasticsearch.enums.ESType;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 由{@link com.ra.elasticsearch.annotation.SearchableField}解析出的字段映射描述
+ */
+public class MappingField {
+
+    private final String name;
+    private final ESType type;
+    private final ESAnalyzer analyzer;
+    private final String copyTo;
+    private final boolean keywordList;
+    private final List<MappingField> properties;
+
+    public MappingField(String name, ESType type, ESAnalyzer analyzer, String copyTo, boolean keywordList, List<MappingField> properties) {
+        this.name = name;
+        this.type = type;
+        this.analyzer = analyzer;
+        this.copyTo = copyTo;
+        this.keywordList = keywordList;
+        this.properties = properties == null ? Collections.emptyList() : Collections.unmodifiableList(properties);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public ESType getType() {
+        return type;
+    }
+
+    public ESAnalyzer getAnalyzer() {
+        return analyzer;
+    }
+
+    public String getCopyTo() {
+        return copyTo;
+    }
+
+    /**
+     * LIST类型且元素为String, 映射为keyword
+     */
+    public boolean isKeywordList() {
+        return keywordList;
+    }
+
+    /**
+     * OBJECT类型及元素为对象的LIST类型的子字段
+     */
+    public List<MappingField> getProperties() {
+        return properties;
+    }
+}
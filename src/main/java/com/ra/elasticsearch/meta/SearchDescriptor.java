@@ -0,0 +1,40 @@
+package com.ra.elasticsearch.meta;
+
+import java.util.List;
+
+/**
+ * 编译期由{@link com.ra.elasticsearch.processor.SearchDescriptorProcessor}生成的VO描述
+ * 生成类与VO同包, 类名为VO的类名加{@link #CLASS_SUFFIX}, 不存在时{@link VOMetadata}回退到反射解析
+ */
+public interface SearchDescriptor<T> {
+
+    String CLASS_SUFFIX = "$$SearchDescriptor";
+
+    Class<T> getVOClass();
+
+    /**
+     * 与{@link com.ra.elasticsearch.utils.IndexBuildUtil#resolveMappingFields(Class)}的解析结果一致
+     */
+    List<MappingField> getMappingFields();
+
+    /**
+     * searchId字段名, 没有searchId字段时返回null
+     */
+    String getSearchIdName();
+
+    /**
+     * 直接调用getter读取searchId
+     */
+    Object readSearchId(T vo);
+
+    /**
+     * routing字段名, 没有{@link com.ra.elasticsearch.annotation.SearchRouting}字段时返回null
+     */
+    default String getRoutingName() {
+        return null;
+    }
+
+    default Object readRouting(T vo) {
+        throw new IllegalArgumentException(getVOClass().getName() + " has no routing field");
+    }
+}
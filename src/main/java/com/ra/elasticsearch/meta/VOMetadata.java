@@ -0,0 +1,287 @@
+package com.ra.elasticsearch.meta;
+
+import com.ra.elasticsearch.annotation.SearchId;
+import com.ra.elasticsearch.annotation.SearchRouting;
+import com.ra.elasticsearch.utils.IndexBuildUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeanUtils;
+
+import java.beans.PropertyDescriptor;
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * VO类的反射元数据, 每个类只解析一次
+ * 包含searchId读取器、高亮字段写入器及索引映射描述, 读写器为MethodHandle, 避免每条数据走Introspector和Method.invoke
+ * 存在编译期生成的{@link SearchDescriptor}时, 映射描述与searchId读取直接使用生成类, 不再反射解析
+ */
+public class VOMetadata {
+
+    private static final Map<Class<?>, VOMetadata> CACHE = new ConcurrentHashMap<>();
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType STRING_SETTER_TYPE = MethodType.methodType(void.class, Object.class, String.class);
+    private static final Logger logger = LoggerFactory.getLogger(VOMetadata.class);
+    private final Class<?> clazz;
+    private final SearchDescriptor<Object> descriptor;
+    private final String searchIdName;
+    private final MethodHandle searchIdGetter;
+    /**
+     * 组合searchId各字段的getter, 按order排列, 单字段时为null
+     */
+    private final MethodHandle[] compositeIdGetters;
+    private final String routingName;
+    private final MethodHandle routingGetter;
+    private final Map<String, MethodHandle> stringSetters;
+    private final List<MappingField> mappingFields;
+
+    private VOMetadata(Class<?> clazz) {
+        this.clazz = clazz;
+        this.descriptor = findDescriptor(clazz);
+        if (descriptor != null) {
+            this.searchIdName = descriptor.getSearchIdName();
+            this.searchIdGetter = null;
+            this.compositeIdGetters = null;
+            this.routingName = descriptor.getRoutingName();
+            this.routingGetter = null;
+            this.mappingFields = descriptor.getMappingFields();
+        } else {
+            List<Field> searchIdFields = findSearchIdFields(clazz);
+            this.searchIdName = searchIdFields.isEmpty() ? null : searchIdFields.get(0).getName();
+            this.searchIdGetter = searchIdFields.size() == 1 ? findGetter(clazz, searchIdName) : null;
+            if (searchIdFields.size() > 1) {
+                this.compositeIdGetters = new MethodHandle[searchIdFields.size()];
+                for (int i = 0; i < compositeIdGetters.length; i++) {
+                    compositeIdGetters[i] = findGetter(clazz, searchIdFields.get(i).getName());
+                }
+            } else {
+                this.compositeIdGetters = null;
+            }
+            Field routingField = findAnnotatedField(clazz, SearchRouting.class);
+            this.routingName = routingField == null ? null : routingField.getName();
+            this.routingGetter = routingField == null ? null : findGetter(clazz, routingField.getName());
+            this.mappingFields = Collections.unmodifiableList(IndexBuildUtil.resolveMappingFields(clazz));
+        }
+        this.stringSetters = findStringSetters(clazz);
+    }
+
+    public static VOMetadata of(Class<?> clazz) {
+        return CACHE.computeIfAbsent(clazz, VOMetadata::new);
+    }
+
+    public boolean hasSearchIdField() {
+        return searchIdName != null;
+    }
+
+    /**
+     * searchId字段名, 组合searchId时为order最小的字段
+     */
+    public String getSearchIdName() {
+        if (searchIdName == null) {
+            throw new IllegalArgumentException(clazz.getName() + " must have a searchId field");
+        }
+        return searchIdName;
+    }
+
+    public Field getSearchIdField() {
+        getSearchIdName();
+        return findAnnotatedField(clazz, SearchId.class);
+    }
+
+    /**
+     * 是否使用编译期生成的描述
+     */
+    public boolean isGenerated() {
+        return descriptor != null;
+    }
+
+    /**
+     * 是否由多个{@link SearchId}字段组合文档id
+     */
+    public boolean isCompositeSearchId() {
+        return compositeIdGetters != null;
+    }
+
+    /**
+     * 读取VO的searchId字段值, 组合searchId时使用{@link #readSearchIdValues(Object)}
+     */
+    public Object readSearchId(Object vo) {
+        getSearchIdName();
+        if (compositeIdGetters != null) {
+            throw new IllegalArgumentException(clazz.getName() + " has a composite searchId");
+        }
+        if (descriptor != null) {
+            return descriptor.readSearchId(vo);
+        }
+        try {
+            return (Object) searchIdGetter.invokeExact(vo);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    /**
+     * 按order读取组合searchId各字段的值
+     */
+    public Object[] readSearchIdValues(Object vo) {
+        if (compositeIdGetters == null) {
+            return new Object[]{readSearchId(vo)};
+        }
+        Object[] values = new Object[compositeIdGetters.length];
+        try {
+            for (int i = 0; i < compositeIdGetters.length; i++) {
+                values[i] = (Object) compositeIdGetters[i].invokeExact(vo);
+            }
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+        return values;
+    }
+
+    public boolean hasRoutingField() {
+        return routingName != null;
+    }
+
+    /**
+     * routing字段名, 没有routing字段时返回null
+     */
+    public String getRoutingName() {
+        return routingName;
+    }
+
+    /**
+     * 读取VO的routing值, 没有routing字段或字段值为null时返回null
+     */
+    public String readRouting(Object vo) {
+        if (routingName == null) {
+            return null;
+        }
+        Object routing;
+        if (descriptor != null) {
+            routing = descriptor.readRouting(vo);
+        } else {
+            try {
+                routing = (Object) routingGetter.invokeExact(vo);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new IllegalStateException(t);
+            }
+        }
+        return routing == null ? null : routing.toString();
+    }
+
+    /**
+     * 写入String类型的属性, 属性不存在时返回false
+     */
+    public boolean writeString(Object vo, String propertyName, String value) {
+        MethodHandle setter = stringSetters.get(propertyName);
+        if (setter == null) {
+            return false;
+        }
+        try {
+            setter.invokeExact(vo, value);
+            return true;
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    public List<MappingField> getMappingFields() {
+        return mappingFields;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static SearchDescriptor<Object> findDescriptor(Class<?> clazz) {
+        try {
+            Class<?> descriptorClass = Class.forName(clazz.getName() + SearchDescriptor.CLASS_SUFFIX, true, clazz.getClassLoader());
+            SearchDescriptor<Object> descriptor = (SearchDescriptor<Object>) descriptorClass.getDeclaredConstructor().newInstance();
+            if (descriptor.getVOClass() != clazz) {
+                logger.warn("search descriptor {} does not match {}", descriptorClass.getName(), clazz.getName());
+                return null;
+            }
+            return descriptor;
+        } catch (ClassNotFoundException e) {
+            return null;
+        } catch (Exception | LinkageError e) {
+            logger.warn("load search descriptor for {} error, fall back to reflection", clazz.getName(), e);
+            return null;
+        }
+    }
+
+    private static Field findAnnotatedField(Class<?> clazz, Class<? extends Annotation> annotationClass) {
+        List<Field> fieldList = new ArrayList<>();
+        Class<?> tempClass = clazz;
+        while (tempClass != null) {
+            fieldList.addAll(Arrays.asList(tempClass.getDeclaredFields()));
+            tempClass = tempClass.getSuperclass();
+        }
+        for (Field field : fieldList) {
+            if (field.isAnnotationPresent(annotationClass)) {
+                return field;
+            }
+        }
+        return null;
+    }
+
+    private static List<Field> findSearchIdFields(Class<?> clazz) {
+        List<Field> searchIdFields = new ArrayList<>();
+        Class<?> tempClass = clazz;
+        while (tempClass != null) {
+            for (Field field : tempClass.getDeclaredFields()) {
+                if (field.isAnnotationPresent(SearchId.class)) {
+                    searchIdFields.add(field);
+                }
+            }
+            tempClass = tempClass.getSuperclass();
+        }
+        searchIdFields.sort(Comparator.comparingInt(field -> field.getAnnotation(SearchId.class).order()));
+        return searchIdFields;
+    }
+
+    private static MethodHandle findGetter(Class<?> clazz, String propertyName) {
+        PropertyDescriptor propertyDescriptor = BeanUtils.getPropertyDescriptor(clazz, propertyName);
+        if (propertyDescriptor == null || propertyDescriptor.getReadMethod() == null) {
+            throw new IllegalArgumentException(clazz.getName() + " must have a getter for " + propertyName);
+        }
+        return unreflect(propertyDescriptor.getReadMethod()).asType(GETTER_TYPE);
+    }
+
+    private static Map<String, MethodHandle> findStringSetters(Class<?> clazz) {
+        Map<String, MethodHandle> setters = new HashMap<>();
+        for (PropertyDescriptor propertyDescriptor : BeanUtils.getPropertyDescriptors(clazz)) {
+            Method writeMethod = propertyDescriptor.getWriteMethod();
+            if (writeMethod != null && propertyDescriptor.getPropertyType() == String.class) {
+                setters.put(propertyDescriptor.getName(), unreflect(writeMethod).asType(STRING_SETTER_TYPE));
+            }
+        }
+        return setters;
+    }
+
+    private static MethodHandle unreflect(Method method) {
+        try {
+            method.setAccessible(true);
+            return MethodHandles.lookup().unreflect(method);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.ra.elasticsearch.metrics;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * es客户端连接池指标: 已租用、等待、空闲及最大连接数, 以及租用占比
+ * 客户端在注册中心绑定前后创建均可
+ */
+public class ConnectionPoolMetrics implements MeterBinder {
+
+    private static final String METRIC_PREFIX = "es.client.pool.";
+    private final Map<String, PoolingNHttpClientConnectionManager> pools = new ConcurrentHashMap<>();
+    private volatile MeterRegistry registry;
+
+    public void register(String clientName, PoolingNHttpClientConnectionManager connectionManager) {
+        pools.put(clientName, connectionManager);
+        MeterRegistry meterRegistry = registry;
+        if (meterRegistry != null) {
+            bind(meterRegistry, clientName, connectionManager);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry meterRegistry) {
+        registry = meterRegistry;
+        pools.forEach((clientName, connectionManager) -> bind(meterRegistry, clientName, connectionManager));
+    }
+
+    private void bind(MeterRegistry meterRegistry, String clientName, PoolingNHttpClientConnectionManager connectionManager) {
+        Tags tags = Tags.of("client", clientName);
+        Gauge.builder(METRIC_PREFIX + "leased", connectionManager, cm -> cm.getTotalStats().getLeased())
+                .tags(tags).description("connections in use").register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + "pending", connectionManager, cm -> cm.getTotalStats().getPending())
+                .tags(tags).description("requests waiting for a connection").register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + "available", connectionManager, cm -> cm.getTotalStats().getAvailable())
+                .tags(tags).description("idle connections").register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + "max", connectionManager, cm -> cm.getTotalStats().getMax())
+                .tags(tags).description("max total connections").register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + "saturation", connectionManager,
+                cm -> cm.getTotalStats().getMax() == 0 ? 0 : (double) cm.getTotalStats().getLeased() / cm.getTotalStats().getMax())
+                .tags(tags).description("leased / max total connections").register(meterRegistry);
+    }
+
+    public Map<String, PoolingNHttpClientConnectionManager> getPools() {
+        return pools;
+    }
+}
@@ -0,0 +1,136 @@
+package com.ra.elasticsearch.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkResponse;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 单个索引的操作指标, 均带index标签
+ * es.operation: fetch/serialize/bulk/index/delete/transform 各阶段耗时
+ * es.bulk.failures: bulk中失败的文档数, 按失败状态区分
+ * es.rebuild.*: 全量重建进度, 已写入文档数、速率及预计剩余时间
+ */
+public class IndexMetrics {
+    public static final String FETCH = "fetch";
+    public static final String SERIALIZE = "serialize";
+    public static final String BULK = "bulk";
+    public static final String INDEX = "index";
+    public static final String DELETE = "delete";
+    public static final String TRANSFORM = "transform";
+    private static final String METRIC_PREFIX = "es.";
+
+    private final MeterRegistry registry;
+    private final Tags tags;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> failureCounters = new ConcurrentHashMap<>();
+    private final AtomicLong rebuildDocs = new AtomicLong();
+    private volatile long rebuildStartNanos;
+    private volatile long rebuildExpectedDocs = -1;
+
+    public IndexMetrics(MeterRegistry registry, String indexName) {
+        this.registry = registry;
+        this.tags = Tags.of("index", indexName);
+        Gauge.builder(METRIC_PREFIX + "rebuild.docs", rebuildDocs, AtomicLong::get)
+                .tags(tags).description("documents written by the running rebuild").register(registry);
+        Gauge.builder(METRIC_PREFIX + "rebuild.rate", this, IndexMetrics::rebuildRate)
+                .tags(tags).description("documents per second of the running rebuild").register(registry);
+        Gauge.builder(METRIC_PREFIX + "rebuild.eta", this, IndexMetrics::rebuildEtaSeconds)
+                .tags(tags).baseUnit("seconds").description("estimated seconds left of the running rebuild").register(registry);
+    }
+
+    public Timer timer(String operation) {
+        return timers.computeIfAbsent(operation, key -> Timer.builder(METRIC_PREFIX + "operation")
+                .tags(tags).tag("operation", key)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(registry));
+    }
+
+    public <R> R record(String operation, Supplier<R> supplier) {
+        return timer(operation).record(supplier);
+    }
+
+    public Timer.Sample start() {
+        return Timer.start(registry);
+    }
+
+    public void stop(Timer.Sample sample, String operation) {
+        sample.stop(timer(operation));
+    }
+
+    /**
+     * 按失败状态统计bulk中失败的文档
+     */
+    public void recordBulkResponse(BulkResponse bulkResponse) {
+        if (bulkResponse == null || !bulkResponse.hasFailures()) {
+            return;
+        }
+        for (BulkItemResponse item : bulkResponse.getItems()) {
+            if (item.isFailed()) {
+                failureCounters.computeIfAbsent(item.getFailure().getStatus().name(), reason -> Counter.builder(METRIC_PREFIX + "bulk.failures")
+                        .tags(tags).tag("reason", reason).register(registry)).increment();
+            }
+        }
+    }
+
+    /**
+     * bulk在途字节数, 由提供方按需计算
+     */
+    public <S> void bindInFlightBytes(S source, ToDoubleFunction<S> inFlightBytes) {
+        Gauge.builder(METRIC_PREFIX + "bulk.inflight", source, inFlightBytes)
+                .tags(tags).baseUnit("bytes").description("bulk request bytes in flight").register(registry);
+    }
+
+    /**
+     * 开始统计重建进度, expectedDocs未知时传负数, 此时不计算预计剩余时间
+     */
+    public void startRebuild(long expectedDocs) {
+        rebuildDocs.set(0);
+        rebuildExpectedDocs = expectedDocs;
+        rebuildStartNanos = System.nanoTime();
+    }
+
+    public void recordRebuildDocs(BulkResponse bulkResponse) {
+        if (bulkResponse == null) {
+            return;
+        }
+        int succeeded = 0;
+        for (BulkItemResponse item : bulkResponse.getItems()) {
+            if (!item.isFailed()) {
+                succeeded++;
+            }
+        }
+        rebuildDocs.addAndGet(succeeded);
+    }
+
+    public void finishRebuild() {
+        rebuildStartNanos = 0;
+    }
+
+    private double rebuildRate() {
+        long startNanos = rebuildStartNanos;
+        if (startNanos == 0) {
+            return 0;
+        }
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        return seconds <= 0 ? 0 : rebuildDocs.get() / seconds;
+    }
+
+    private double rebuildEtaSeconds() {
+        long expectedDocs = rebuildExpectedDocs;
+        double rate = rebuildRate();
+        if (rebuildStartNanos == 0 || expectedDocs < 0 || rate <= 0) {
+            return Double.NaN;
+        }
+        return Math.max(0, expectedDocs - rebuildDocs.get()) / rate;
+    }
+}
@@ -0,0 +1,189 @@
+package com.ra.elasticsearch.pipeline;
+
+import com.ra.elasticsearch.bulk.BulkBuffer;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 全量索引流水线: fetch -> serialize -> bulk
+ * 各阶段独立并发, 阶段之间通过有界队列传递数据, 下游处理不过来时上游阻塞
+ * serialize阶段每个线程持有自己的{@link BulkBuffer}, 按文档数、字节数或时间攒批
+ */
+public class IndexPipeline<T> {
+
+    private static final long MIN_POLL_MILLIS = 100;
+    private final List<T> pageEnd = new ArrayList<>(0);
+    private final BulkRequest bulkEnd = new BulkRequest();
+    private final String name;
+    private final int fetchConcurrency;
+    private final int serializeConcurrency;
+    private final int bulkConcurrency;
+    private final int queueCapacity;
+    private final AtomicLong fetchedDocs = new AtomicLong();
+    private final AtomicLong failedPages = new AtomicLong();
+    private Logger logger = LoggerFactory.getLogger(IndexPipeline.class);
+
+    public IndexPipeline(String name, int fetchConcurrency, int serializeConcurrency, int bulkConcurrency, int queueCapacity) {
+        this.name = name;
+        this.fetchConcurrency = Math.max(1, fetchConcurrency);
+        this.serializeConcurrency = Math.max(1, serializeConcurrency);
+        this.bulkConcurrency = Math.max(1, bulkConcurrency);
+        this.queueCapacity = Math.max(1, queueCapacity);
+    }
+
+    /**
+     * 执行流水线, 阻塞直到所有数据源读取完毕且所有bulk请求发送完成
+     *
+     * @param sources    数据源, fetch线程依次领取并读取, 线程安全的数据源可重复放入以供多个线程共享
+     * @param serializer        将一页VO转换为写请求
+     * @param bulkBufferFactory 为每个serialize线程创建bulk缓冲
+     * @param bulkSender        发送bulk请求
+     */
+    public void run(Collection<? extends PageSource<T>> sources, Function<List<T>, List<? extends DocWriteRequest<?>>> serializer,
+                    Supplier<BulkBuffer> bulkBufferFactory, Consumer<BulkRequest> bulkSender) throws InterruptedException {
+        Queue<PageSource<T>> sourceQueue = new ConcurrentLinkedQueue<>(sources);
+        BlockingQueue<List<T>> pageQueue = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<BulkRequest> bulkQueue = new ArrayBlockingQueue<>(queueCapacity);
+        CountDownLatch fetchLatch = new CountDownLatch(fetchConcurrency);
+        CountDownLatch serializeLatch = new CountDownLatch(serializeConcurrency);
+        CountDownLatch bulkLatch = new CountDownLatch(bulkConcurrency);
+        ExecutorService executorService = Executors.newFixedThreadPool(fetchConcurrency + serializeConcurrency + bulkConcurrency);
+        try {
+            for (int i = 0; i < fetchConcurrency; i++) {
+                executorService.execute(() -> fetch(sourceQueue, pageQueue, fetchLatch));
+            }
+            for (int i = 0; i < serializeConcurrency; i++) {
+                executorService.execute(() -> serialize(pageQueue, bulkQueue, serializer, bulkBufferFactory.get(), serializeLatch));
+            }
+            for (int i = 0; i < bulkConcurrency; i++) {
+                executorService.execute(() -> bulk(bulkQueue, bulkSender, bulkLatch));
+            }
+
+            fetchLatch.await();
+            for (int i = 0; i < serializeConcurrency; i++) {
+                pageQueue.put(pageEnd);
+            }
+            serializeLatch.await();
+            for (int i = 0; i < bulkConcurrency; i++) {
+                bulkQueue.put(bulkEnd);
+            }
+            bulkLatch.await();
+            logger.info("[ES PIPELINE DONE] index: {}, fetched: {}, failedPages: {}", name, fetchedDocs.get(), failedPages.get());
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    private void fetch(Queue<PageSource<T>> sourceQueue, BlockingQueue<List<T>> pageQueue, CountDownLatch fetchLatch) {
+        try {
+            PageSource<T> source;
+            while ((source = sourceQueue.poll()) != null) {
+                try {
+                    for (; ; ) {
+                        List<T> page = source.nextPage();
+                        if (page == null || page.isEmpty()) {
+                            break;
+                        }
+                        fetchedDocs.addAndGet(page.size());
+                        pageQueue.put(page);
+                    }
+                } catch (InterruptedException e) {
+                    throw e;
+                } catch (Exception e) {
+                    failedPages.incrementAndGet();
+                    logger.error("[ES PIPELINE FETCH ERROR] index: {}, errorMsg: {}", name, e.getMessage(), e);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            fetchLatch.countDown();
+            logger.info("[ES FETCH COUNT DOWN]-{}", fetchLatch.getCount());
+        }
+    }
+
+    private void serialize(BlockingQueue<List<T>> pageQueue, BlockingQueue<BulkRequest> bulkQueue,
+                           Function<List<T>, List<? extends DocWriteRequest<?>>> serializer, BulkBuffer bulkBuffer,
+                           CountDownLatch serializeLatch) {
+        long pollMillis = Math.max(MIN_POLL_MILLIS, bulkBuffer.getFlushIntervalMillis());
+        try {
+            for (; ; ) {
+                List<T> page = pageQueue.poll(pollMillis, TimeUnit.MILLISECONDS);
+                if (page == null) {
+                    offer(bulkQueue, bulkBuffer.flushIfExpired());
+                    continue;
+                }
+                if (page == pageEnd) {
+                    offer(bulkQueue, bulkBuffer.flush());
+                    break;
+                }
+                try {
+                    for (DocWriteRequest<?> request : serializer.apply(page)) {
+                        offer(bulkQueue, bulkBuffer.add(request));
+                    }
+                } catch (RuntimeException e) {
+                    failedPages.incrementAndGet();
+                    logger.error("[ES PIPELINE SERIALIZE ERROR] index: {}, errorMsg: {}", name, e.getMessage(), e);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            serializeLatch.countDown();
+        }
+    }
+
+    private void offer(BlockingQueue<BulkRequest> bulkQueue, BulkRequest bulkRequest) throws InterruptedException {
+        if (bulkRequest != null && bulkRequest.numberOfActions() > 0) {
+            bulkQueue.put(bulkRequest);
+        }
+    }
+
+    private void bulk(BlockingQueue<BulkRequest> bulkQueue, Consumer<BulkRequest> bulkSender, CountDownLatch bulkLatch) {
+        try {
+            for (; ; ) {
+                BulkRequest bulkRequest = bulkQueue.take();
+                if (bulkRequest == bulkEnd) {
+                    break;
+                }
+                try {
+                    bulkSender.accept(bulkRequest);
+                } catch (RuntimeException e) {
+                    failedPages.incrementAndGet();
+                    logger.error("[ES PIPELINE BULK ERROR] index: {}, errorMsg: {}", name, e.getMessage(), e);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            bulkLatch.countDown();
+            logger.info("[ES BULK COUNT DOWN]-{}", bulkLatch.getCount());
+        }
+    }
+
+    public long getFetchedDocs() {
+        return fetchedDocs.get();
+    }
+
+    public long getFailedPages() {
+        return failedPages.get();
+    }
+}
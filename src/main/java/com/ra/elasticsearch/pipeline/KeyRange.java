@@ -0,0 +1,55 @@
+package com.ra.elasticsearch.pipeline;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 数据源主键范围 [min, max]
+ */
+public class KeyRange {
+
+    private final long min;
+    private final long max;
+
+    public KeyRange(long min, long max) {
+        if (min > max) {
+            throw new IllegalArgumentException(String.format("key range error, min %s > max %s", min, max));
+        }
+        this.min = min;
+        this.max = max;
+    }
+
+    /**
+     * 按主键值均分为不超过parts个连续子范围
+     */
+    public List<KeyRange> split(int parts) {
+        long span = max - min;
+        if (parts <= 1 || span < 0) {
+            return Collections.singletonList(this);
+        }
+        long step = span / parts + 1;
+        List<KeyRange> ranges = new ArrayList<>(parts);
+        for (long from = min; from <= max; from += step) {
+            long to = max - from < step ? max : from + step - 1;
+            ranges.add(new KeyRange(from, to));
+            if (to == max) {
+                break;
+            }
+        }
+        return ranges;
+    }
+
+    public long getMin() {
+        return min;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    @Override
+    public String toString() {
+        return "[" + min + ", " + max + "]";
+    }
+}
@@ -0,0 +1,55 @@
+package com.ra.elasticsearch.pipeline;
+
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * 基于主键游标分页的数据源, 每个实例只读取一个主键范围, 由单个fetch线程独占
+ */
+public class KeyRangePageSource<T> implements PageSource<T> {
+
+    private final KeyPageReader<T> pageReader;
+    private final ToLongFunction<T> keyExtractor;
+    private final KeyRange keyRange;
+    private final int pageSize;
+    private long lastKey;
+    private boolean exhausted;
+
+    public KeyRangePageSource(KeyPageReader<T> pageReader, ToLongFunction<T> keyExtractor, KeyRange keyRange, int pageSize) {
+        this.pageReader = pageReader;
+        this.keyExtractor = keyExtractor;
+        this.keyRange = keyRange;
+        this.pageSize = pageSize;
+        this.lastKey = keyRange.getMin() - 1;
+    }
+
+    @Override
+    public List<T> nextPage() throws Exception {
+        if (exhausted) {
+            return null;
+        }
+        List<T> page = pageReader.read(lastKey, keyRange.getMax(), pageSize);
+        if (page == null || page.isEmpty()) {
+            exhausted = true;
+            return page;
+        }
+        lastKey = keyExtractor.applyAsLong(page.get(page.size() - 1));
+        // 范围有上界, 不满一页说明已读完, 省去一次空查询
+        if (page.size() < pageSize || lastKey >= keyRange.getMax()) {
+            exhausted = true;
+        }
+        return page;
+    }
+
+    public KeyRange getKeyRange() {
+        return keyRange;
+    }
+
+    @FunctionalInterface
+    public interface KeyPageReader<T> {
+        /**
+         * 读取主键在 (lastKey, maxKey] 内按主键升序排列的前pageSize条数据
+         */
+        List<T> read(long lastKey, long maxKey, int pageSize) throws Exception;
+    }
+}
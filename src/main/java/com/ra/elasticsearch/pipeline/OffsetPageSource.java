@@ -0,0 +1,46 @@
+package com.ra.elasticsearch.pipeline;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 基于offset分页的数据源, 多个fetch线程共享同一实例, 每次领取下一页直到读到空页
+ */
+public class OffsetPageSource<T> implements PageSource<T> {
+
+    private final PageReader<T> pageReader;
+    private final int pageSize;
+    private final AtomicInteger pageIndex = new AtomicInteger();
+    private volatile boolean exhausted;
+
+    public OffsetPageSource(PageReader<T> pageReader, int pageSize) {
+        this(pageReader, pageSize, 0);
+    }
+
+    /**
+     * 从第startPageIndex页开始读取, 用于从检查点继续
+     */
+    public OffsetPageSource(PageReader<T> pageReader, int pageSize, int startPageIndex) {
+        this.pageReader = pageReader;
+        this.pageSize = pageSize;
+        this.pageIndex.set(startPageIndex);
+    }
+
+    @Override
+    public List<T> nextPage() throws Exception {
+        if (exhausted) {
+            return null;
+        }
+        int offset = pageIndex.getAndIncrement() * pageSize;
+        List<T> page = pageReader.read(offset, pageSize);
+        if (page == null || page.isEmpty()) {
+            exhausted = true;
+        }
+        return page;
+    }
+
+    @FunctionalInterface
+    public interface PageReader<T> {
+        List<T> read(int offset, int pageSize) throws Exception;
+    }
+}
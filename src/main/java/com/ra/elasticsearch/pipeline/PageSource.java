@@ -0,0 +1,14 @@
+package com.ra.elasticsearch.pipeline;
+
+import java.util.List;
+
+/**
+ * 全量索引数据源, 由fetch阶段按页读取
+ */
+public interface PageSource<T> {
+
+    /**
+     * 读取下一页, 返回null或空列表表示该数据源已读取完毕
+     */
+    List<T> nextPage() throws Exception;
+}
@@ -0,0 +1,326 @@
+package com.ra.elasticsearch.processor;
+
+import com.ra.elasticsearch.annotation.SearchId;
+import com.ra.elasticsearch.annotation.SearchRouting;
+import com.ra.elasticsearch.annotation.SearchableField;
+import com.ra.elasticsearch.enums.ESType;
+import com.ra.elasticsearch.meta.SearchDescriptor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 为带{@link SearchableField}/{@link SearchId}/{@link SearchRouting}注解的VO生成{@link SearchDescriptor}
+ * 映射解析规则与{@link com.ra.elasticsearch.utils.IndexBuildUtil}的反射解析保持一致, 无法在编译期确定的VO不生成, 运行时回退到反射
+ */
+@SupportedAnnotationTypes({"com.ra.elasticsearch.annotation.SearchableField", "com.ra.elasticsearch.annotation.SearchId",
+        "com.ra.elasticsearch.annotation.SearchRouting"})
+public class SearchDescriptorProcessor extends AbstractProcessor {
+
+    private static final int MAX_DEPTH = 32;
+    private static final String INDENT = "    ";
+    private final Set<String> generated = new HashSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        Set<TypeElement> types = new LinkedHashSet<>();
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() == ElementKind.FIELD && element.getEnclosingElement().getKind() == ElementKind.CLASS) {
+                    types.add((TypeElement) element.getEnclosingElement());
+                }
+            }
+        }
+        for (TypeElement type : types) {
+            if (generated.add(type.getQualifiedName().toString())) {
+                try {
+                    generate(type);
+                } catch (UnsupportedTypeException e) {
+                    processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+                            "skip search descriptor, fall back to reflection: " + e.getMessage(), type);
+                } catch (IOException e) {
+                    processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                            "write search descriptor error: " + e.getMessage(), type);
+                }
+            }
+        }
+        return false;
+    }
+
+    private void generate(TypeElement type) throws IOException {
+        checkAccessible(type);
+        List<VariableElement> fields = getAllClassFields(type);
+        String mappingFields = buildMappingFields(fields, 2, 0);
+        VariableElement searchIdField = findAnnotatedField(fields, SearchId.class);
+        if (fields.stream().filter(field -> field.getAnnotation(SearchId.class) != null).count() > 1) {
+            throw new UnsupportedTypeException("composite searchId of " + type);
+        }
+        String searchIdGetter = searchIdField == null ? null : findGetter(type, searchIdField);
+        VariableElement routingField = findAnnotatedField(fields, SearchRouting.class);
+        String routingGetter = routingField == null ? null : findGetter(type, routingField);
+
+        String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+        String binaryName = processingEnv.getElementUtils().getBinaryName(type).toString();
+        String simpleName = (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1))
+                + SearchDescriptor.CLASS_SUFFIX;
+        String voName = type.getQualifiedName().toString();
+
+        StringBuilder source = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("import com.ra.elasticsearch.enums.ESAnalyzer;\n")
+                .append("import com.ra.elasticsearch.enums.ESType;\n")
+                .append("import com.ra.elasticsearch.meta.MappingField;\n")
+                .append("import com.ra.elasticsearch.meta.SearchDescriptor;\n\n")
+                .append("import java.util.Arrays;\n")
+                .append("import java.util.Collections;\n")
+                .append("import java.util.List;\n\n")
+                .append("/**\n * Generated by ").append(getClass().getName()).append(", do not edit\n */\n")
+                .append("public final class ").append(simpleName).append(" implements SearchDescriptor<").append(voName).append("> {\n\n")
+                .append(INDENT).append("private static final List<MappingField> MAPPING_FIELDS = Collections.unmodifiableList(")
+                .append(mappingFields).append(");\n\n")
+                .append(INDENT).append("@Override\n")
+                .append(INDENT).append("public Class<").append(voName).append("> getVOClass() {\n")
+                .append(INDENT).append(INDENT).append("return ").append(voName).append(".class;\n")
+                .append(INDENT).append("}\n\n")
+                .append(INDENT).append("@Override\n")
+                .append(INDENT).append("public List<MappingField> getMappingFields() {\n")
+                .append(INDENT).append(INDENT).append("return MAPPING_FIELDS;\n")
+                .append(INDENT).append("}\n\n")
+                .append(INDENT).append("@Override\n")
+                .append(INDENT).append("public String getSearchIdName() {\n")
+                .append(INDENT).append(INDENT).append("return ")
+                .append(searchIdField == null ? "null" : literal(searchIdField.getSimpleName().toString())).append(";\n")
+                .append(INDENT).append("}\n\n")
+                .append(INDENT).append("@Override\n")
+                .append(INDENT).append("public Object readSearchId(").append(voName).append(" vo) {\n");
+        if (searchIdGetter == null) {
+            source.append(INDENT).append(INDENT).append("throw new IllegalArgumentException(\"")
+                    .append(voName).append(" must have a searchId field\");\n");
+        } else {
+            source.append(INDENT).append(INDENT).append("return vo.").append(searchIdGetter).append("();\n");
+        }
+        source.append(INDENT).append("}\n");
+        if (routingField != null) {
+            source.append("\n")
+                    .append(INDENT).append("@Override\n")
+                    .append(INDENT).append("public String getRoutingName() {\n")
+                    .append(INDENT).append(INDENT).append("return ").append(literal(routingField.getSimpleName().toString())).append(";\n")
+                    .append(INDENT).append("}\n\n")
+                    .append(INDENT).append("@Override\n")
+                    .append(INDENT).append("public Object readRouting(").append(voName).append(" vo) {\n")
+                    .append(INDENT).append(INDENT).append("return vo.").append(routingGetter).append("();\n")
+                    .append(INDENT).append("}\n");
+        }
+        source.append("}\n");
+
+        String qualifiedName = packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+        try (Writer writer = processingEnv.getFiler().createSourceFile(qualifiedName, type).openWriter()) {
+            writer.write(source.toString());
+        }
+    }
+
+    /**
+     * 生成类与VO同包, VO及其外部类不能为private, 内部类必须为static
+     */
+    private void checkAccessible(TypeElement type) {
+        Element element = type;
+        while (element instanceof TypeElement) {
+            TypeElement typeElement = (TypeElement) element;
+            if (typeElement.getModifiers().contains(Modifier.PRIVATE)) {
+                throw new UnsupportedTypeException(typeElement + " is private");
+            }
+            if (typeElement.getNestingKind() == NestingKind.MEMBER && !typeElement.getModifiers().contains(Modifier.STATIC)) {
+                throw new UnsupportedTypeException(typeElement + " is an inner class");
+            }
+            if (typeElement.getNestingKind() == NestingKind.LOCAL || typeElement.getNestingKind() == NestingKind.ANONYMOUS) {
+                throw new UnsupportedTypeException(typeElement + " is a local class");
+            }
+            if (!typeElement.getTypeParameters().isEmpty()) {
+                throw new UnsupportedTypeException(typeElement + " is generic");
+            }
+            element = typeElement.getEnclosingElement();
+        }
+    }
+
+    private String buildMappingFields(List<VariableElement> fields, int indent, int depth) {
+        if (depth > MAX_DEPTH) {
+            throw new UnsupportedTypeException("mapping nested too deep at " + fields);
+        }
+        List<String> mappingFields = new ArrayList<>();
+        for (VariableElement field : fields) {
+            SearchableField annotation = field.getAnnotation(SearchableField.class);
+            if (annotation == null) {
+                continue;
+            }
+            ESType esType = annotation.type();
+            boolean keywordList = false;
+            String properties = "null";
+            if (esType == ESType.OBJECT) {
+                TypeMirror fieldType = field.asType();
+                List<VariableElement> objectFields;
+                if (fieldType.getKind() == TypeKind.DECLARED) {
+                    objectFields = getDeclaredFields((TypeElement) ((DeclaredType) fieldType).asElement());
+                } else if (fieldType.getKind().isPrimitive() || fieldType.getKind() == TypeKind.ARRAY) {
+                    objectFields = new ArrayList<>();
+                } else {
+                    throw new UnsupportedTypeException("unsupported object type of " + field.getSimpleName());
+                }
+                properties = buildMappingFields(objectFields, indent + 2, depth + 1);
+            } else if (esType == ESType.LIST) {
+                TypeElement elementType = getListElementType(field);
+                if (elementType.getQualifiedName().contentEquals(String.class.getName())) {
+                    keywordList = true;
+                } else {
+                    properties = buildMappingFields(buildSuperClassFields(elementType), indent + 2, depth + 1);
+                }
+            }
+            mappingFields.add("new MappingField(" + literal(field.getSimpleName().toString())
+                    + ", ESType." + esType.name()
+                    + ", ESAnalyzer." + annotation.analyzer().name()
+                    + ", " + literal(annotation.copyTo())
+                    + ", " + keywordList
+                    + ", " + properties + ")");
+        }
+        if (mappingFields.isEmpty()) {
+            return "Collections.<MappingField>emptyList()";
+        }
+        StringBuilder indentString = new StringBuilder();
+        for (int i = 0; i < indent; i++) {
+            indentString.append(INDENT);
+        }
+        return "Arrays.<MappingField>asList(\n" + indentString + String.join(",\n" + indentString, mappingFields) + ")";
+    }
+
+    /**
+     * LIST类型字段只支持List/Set, 泛型参数必须为具体类型
+     */
+    private TypeElement getListElementType(VariableElement field) {
+        TypeMirror fieldType = processingEnv.getTypeUtils().erasure(field.asType());
+        String typeName = fieldType.toString();
+        if (!List.class.getName().equals(typeName) && !Set.class.getName().equals(typeName)) {
+            throw new UnsupportedTypeException(String.format("field type error %s,type %s", field.getSimpleName(), typeName));
+        }
+        List<? extends TypeMirror> typeArguments = ((DeclaredType) field.asType()).getTypeArguments();
+        if (typeArguments.size() != 1 || typeArguments.get(0).getKind() != TypeKind.DECLARED
+                || !((DeclaredType) typeArguments.get(0)).getTypeArguments().isEmpty()) {
+            throw new UnsupportedTypeException("unsupported list element type of " + field.getSimpleName());
+        }
+        return (TypeElement) ((DeclaredType) typeArguments.get(0)).asElement();
+    }
+
+    /**
+     * 与反射解析一致: 类自身字段加直接父类字段
+     */
+    private List<VariableElement> buildSuperClassFields(TypeElement type) {
+        List<VariableElement> fields = getDeclaredFields(type);
+        TypeMirror superclass = type.getSuperclass();
+        if (superclass.getKind() != TypeKind.DECLARED) {
+            throw new UnsupportedTypeException(type + " has no superclass");
+        }
+        TypeElement superType = (TypeElement) ((DeclaredType) superclass).asElement();
+        if (!superType.getQualifiedName().contentEquals(Object.class.getName())) {
+            if (!((DeclaredType) superclass).getTypeArguments().isEmpty()) {
+                throw new UnsupportedTypeException(type + " has a generic superclass");
+            }
+            fields.addAll(getDeclaredFields(superType));
+        }
+        return fields;
+    }
+
+    private List<VariableElement> getAllClassFields(TypeElement type) {
+        List<VariableElement> fields = new ArrayList<>();
+        TypeElement current = type;
+        while (current != null && !current.getQualifiedName().contentEquals(Object.class.getName())) {
+            fields.addAll(getDeclaredFields(current));
+            TypeMirror superclass = current.getSuperclass();
+            current = superclass.getKind() == TypeKind.DECLARED ? (TypeElement) ((DeclaredType) superclass).asElement() : null;
+        }
+        return fields;
+    }
+
+    private List<VariableElement> getDeclaredFields(TypeElement type) {
+        return new ArrayList<>(ElementFilter.fieldsIn(type.getEnclosedElements()));
+    }
+
+    private VariableElement findAnnotatedField(List<VariableElement> fields, Class<? extends Annotation> annotationClass) {
+        for (VariableElement field : fields) {
+            if (field.getAnnotation(annotationClass) != null) {
+                return field;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 按JavaBean规则查找public getter, boolean字段优先isXxx
+     */
+    private String findGetter(TypeElement type, VariableElement field) {
+        String fieldName = field.getSimpleName().toString();
+        String capitalized = Character.toUpperCase(fieldName.charAt(0)) + fieldName.substring(1);
+        if (!decapitalize(capitalized).equals(fieldName)) {
+            throw new UnsupportedTypeException("no bean property for " + fieldName);
+        }
+        List<String> candidates = new ArrayList<>();
+        if (field.asType().getKind() == TypeKind.BOOLEAN) {
+            candidates.add("is" + capitalized);
+        }
+        candidates.add("get" + capitalized);
+        List<ExecutableElement> methods = ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(type));
+        for (String candidate : candidates) {
+            for (ExecutableElement method : methods) {
+                if (method.getSimpleName().contentEquals(candidate) && method.getParameters().isEmpty()
+                        && method.getModifiers().contains(Modifier.PUBLIC) && !method.getModifiers().contains(Modifier.STATIC)
+                        && method.getReturnType().getKind() != TypeKind.VOID) {
+                    return candidate;
+                }
+            }
+        }
+        throw new UnsupportedTypeException("no public getter for " + fieldName);
+    }
+
+    private static String decapitalize(String name) {
+        if (name.length() > 1 && Character.isUpperCase(name.charAt(0)) && Character.isUpperCase(name.charAt(1))) {
+            return name;
+        }
+        return Character.toLowerCase(name.charAt(0)) + name.substring(1);
+    }
+
+    private String literal(String value) {
+        return processingEnv.getElementUtils().getConstantExpression(value);
+    }
+
+    private static class UnsupportedTypeException extends RuntimeException {
+        UnsupportedTypeException(String message) {
+            super(message);
+        }
+    }
+}
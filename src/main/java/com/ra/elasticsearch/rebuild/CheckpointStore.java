@@ -0,0 +1,19 @@
+package com.ra.elasticsearch.rebuild;
+
+import java.io.IOException;
+
+/**
+ * 重建检查点存储, 每个索引别名至多一个检查点
+ * 默认{@link FileCheckpointStore}写本地文件, 多实例部署时可声明CheckpointStore类型的bean改为共享存储
+ */
+public interface CheckpointStore {
+
+    /**
+     * 不存在时返回null
+     */
+    RebuildCheckpoint load(String alias) throws IOException;
+
+    void save(RebuildCheckpoint checkpoint) throws IOException;
+
+    void delete(String alias) throws IOException;
+}
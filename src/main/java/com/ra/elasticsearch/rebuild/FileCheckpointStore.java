@@ -0,0 +1,45 @@
+package com.ra.elasticsearch.rebuild;
+
+import com.alibaba.fastjson.JSON;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * 检查点保存为目录下的 别名.json, 先写临时文件再原子替换, 进程中途退出不会留下不完整的检查点
+ */
+public class FileCheckpointStore implements CheckpointStore {
+
+    private static final String FILE_SUFFIX = ".json";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private final Path dir;
+
+    public FileCheckpointStore(String dir) {
+        this.dir = Paths.get(dir);
+    }
+
+    @Override
+    public RebuildCheckpoint load(String alias) throws IOException {
+        Path file = dir.resolve(alias + FILE_SUFFIX);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        return JSON.parseObject(Files.readAllBytes(file), RebuildCheckpoint.class);
+    }
+
+    @Override
+    public synchronized void save(RebuildCheckpoint checkpoint) throws IOException {
+        Files.createDirectories(dir);
+        Path temp = dir.resolve(checkpoint.getAlias() + TEMP_SUFFIX);
+        Files.write(temp, JSON.toJSONBytes(checkpoint));
+        Files.move(temp, dir.resolve(checkpoint.getAlias() + FILE_SUFFIX), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Override
+    public void delete(String alias) throws IOException {
+        Files.deleteIfExists(dir.resolve(alias + FILE_SUFFIX));
+    }
+}
@@ -0,0 +1,81 @@
+package com.ra.elasticsearch.rebuild;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 一次全量重建的检查点, 记录目标索引及各切片进度, 重建完成并切换别名后删除
+ */
+public class RebuildCheckpoint {
+    public static final String OFFSET_MODE = "offset";
+    public static final String KEY_MODE = "key";
+
+    private String alias;
+    private String targetIndex;
+    private String mode;
+    private List<SliceCheckpoint> slices = new ArrayList<>();
+    /**
+     * 导入配置覆盖前新索引的原始设置, 切换别名前恢复
+     */
+    private Map<String, String> servingSettings = new HashMap<>();
+    private long updateTime;
+
+    public RebuildCheckpoint() {
+    }
+
+    public RebuildCheckpoint(String alias, String targetIndex, String mode) {
+        this.alias = alias;
+        this.targetIndex = targetIndex;
+        this.mode = mode;
+    }
+
+    public String getAlias() {
+        return alias;
+    }
+
+    public void setAlias(String alias) {
+        this.alias = alias;
+    }
+
+    public String getTargetIndex() {
+        return targetIndex;
+    }
+
+    public void setTargetIndex(String targetIndex) {
+        this.targetIndex = targetIndex;
+    }
+
+    public String getMode() {
+        return mode;
+    }
+
+    public void setMode(String mode) {
+        this.mode = mode;
+    }
+
+    public List<SliceCheckpoint> getSlices() {
+        return slices;
+    }
+
+    public void setSlices(List<SliceCheckpoint> slices) {
+        this.slices = slices;
+    }
+
+    public Map<String, String> getServingSettings() {
+        return servingSettings;
+    }
+
+    public void setServingSettings(Map<String, String> servingSettings) {
+        this.servingSettings = servingSettings;
+    }
+
+    public long getUpdateTime() {
+        return updateTime;
+    }
+
+    public void setUpdateTime(long updateTime) {
+        this.updateTime = updateTime;
+    }
+}
@@ -0,0 +1,110 @@
+package com.ra.elasticsearch.rebuild;
+
+import com.ra.elasticsearch.enums.WriteOperation;
+import org.elasticsearch.action.index.IndexRequest;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 全量重建期间的实时写操作日志
+ * 重建过程中别名仍指向旧索引, 实时写入的id记录在日志中, 数据导入完成后回放到新索引;
+ * 切换为双写后, 实时写入在记录日志之后还会直接写入新索引, 保证别名切换前不丢失变更
+ * 重建未完成时日志保留到继续重建, 此时按maxEntries限制条数, 超过后由调用方丢弃
+ */
+public class RebuildJournal {
+
+    private final String targetIndex;
+    private final ConcurrentHashMap<String, WriteOperation> entries = new ConcurrentHashMap<>();
+    /**
+     * 无法按数据源id重新读取的写入, 以文档id为键保存已编码的请求
+     */
+    private final ConcurrentHashMap<String, IndexRequest> documents = new ConcurrentHashMap<>();
+    private volatile boolean dualWrite;
+    private volatile long maxEntries;
+
+    public RebuildJournal(String targetIndex) {
+        this.targetIndex = targetIndex;
+    }
+
+    /**
+     * 记录一次写操作, 同一id只保留最后一次操作
+     * 调用方需先记录再检查{@link #isDualWrite()}, 以保证切换双写前后的写操作至少被回放或双写其一覆盖
+     */
+    public void record(String id, WriteOperation operation) {
+        entries.put(id, operation);
+        if (operation == WriteOperation.DELETE) {
+            documents.remove(id);
+        }
+    }
+
+    /**
+     * 记录一次已编码的文档写入, 回放时直接写入该请求, 同一文档id只保留最后一次, 并覆盖之前对该文档id的删除
+     */
+    public void recordDocument(IndexRequest indexRequest) {
+        documents.put(indexRequest.id(), indexRequest);
+        entries.remove(indexRequest.id(), WriteOperation.DELETE);
+    }
+
+    /**
+     * 取出当前已记录的全部写操作
+     */
+    public Map<String, WriteOperation> drain() {
+        Map<String, WriteOperation> ret = new LinkedHashMap<>();
+        for (String id : entries.keySet()) {
+            WriteOperation operation = entries.remove(id);
+            if (operation != null) {
+                ret.put(id, operation);
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * 取出当前已记录的全部文档写入
+     */
+    public List<IndexRequest> drainDocuments() {
+        List<IndexRequest> ret = new ArrayList<>();
+        for (String id : documents.keySet()) {
+            IndexRequest indexRequest = documents.remove(id);
+            if (indexRequest != null) {
+                ret.add(indexRequest);
+            }
+        }
+        return ret;
+    }
+
+    public long size() {
+        return entries.size() + documents.size();
+    }
+
+    /**
+     * 限制日志条数, 0表示不限制
+     */
+    public void setMaxEntries(long maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    public boolean isOverflowed() {
+        long max = maxEntries;
+        return max > 0 && size() > max;
+    }
+
+    public void startDualWrite() {
+        dualWrite = true;
+    }
+
+    public boolean isDualWrite() {
+        return dualWrite;
+    }
+
+    /**
+     * 新建的物理索引名
+     */
+    public String getTargetIndex() {
+        return targetIndex;
+    }
+}
@@ -0,0 +1,293 @@
+package com.ra.elasticsearch.rebuild;
+
+import com.ra.elasticsearch.pipeline.PageSource;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.DocWriteResponse;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.rest.RestStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToLongFunction;
+
+/**
+ * 跟踪全量重建中每一页从读取到bulk写入确认的过程, 推进并定期保存检查点
+ * 同一切片内只有连续且全部写入成功的页才会推进游标, 失败的页会阻止切片继续推进, 之后从该页重新读取
+ */
+public class RebuildProgress {
+
+    private final RebuildCheckpoint checkpoint;
+    private final CheckpointStore store;
+    private final long saveIntervalMillis;
+    private final Map<String, SliceState> slices = new LinkedHashMap<>();
+    private final Map<DocWriteRequest<?>, Page> requestPages = Collections.synchronizedMap(new IdentityHashMap<>());
+    private final AtomicLong createdDocs = new AtomicLong();
+    private long lastSaveMillis;
+    private Logger logger = LoggerFactory.getLogger(RebuildProgress.class);
+
+    public RebuildProgress(RebuildCheckpoint checkpoint, CheckpointStore store, long saveIntervalMillis) {
+        this.checkpoint = checkpoint;
+        this.store = store;
+        this.saveIntervalMillis = saveIntervalMillis;
+        boolean offsetMode = RebuildCheckpoint.OFFSET_MODE.equals(checkpoint.getMode());
+        for (SliceCheckpoint slice : checkpoint.getSlices()) {
+            slices.put(slice.getId(), new SliceState(slice, offsetMode ? slice.getCursor() : 0));
+        }
+    }
+
+    public RebuildCheckpoint getCheckpoint() {
+        return checkpoint;
+    }
+
+    /**
+     * 数据源读到空页时标记切片读取完毕
+     */
+    public <T> PageSource<T> track(String sliceId, PageSource<T> source) {
+        SliceState slice = slices.get(sliceId);
+        return () -> {
+            List<T> page = source.nextPage();
+            if (page == null || page.isEmpty()) {
+                slice.exhausted = true;
+            }
+            return page;
+        };
+    }
+
+    /**
+     * 切片已没有需要读取的数据
+     */
+    public void markExhausted(String sliceId) {
+        slices.get(sliceId).exhausted = true;
+    }
+
+    /**
+     * 读取offset分页的第pageIndex页, 写入确认后游标推进到pageIndex + 1
+     */
+    public <T> List<T> readOffsetPage(String sliceId, long pageIndex, Callable<List<T>> reader) throws Exception {
+        SliceState slice = slices.get(sliceId);
+        List<T> page = read(slice, reader);
+        return page == null || page.isEmpty() ? page : new TrackedPage<>(page, slice.register(pageIndex, pageIndex + 1));
+    }
+
+    /**
+     * 读取主键分页的下一页, 同一切片由单个线程顺序读取, 写入确认后游标推进到本页最大主键
+     */
+    public <T> List<T> readKeyPage(String sliceId, Callable<List<T>> reader, ToLongFunction<T> keyExtractor) throws Exception {
+        SliceState slice = slices.get(sliceId);
+        List<T> page = read(slice, reader);
+        if (page == null || page.isEmpty()) {
+            return page;
+        }
+        long lastKey = keyExtractor.applyAsLong(page.get(page.size() - 1));
+        return new TrackedPage<>(page, slice.register(slice.nextFetchSeq++, lastKey));
+    }
+
+    /**
+     * 记录一页VO转换出的写请求, 须在请求放入bulk缓冲之前调用
+     */
+    public void onSerialized(List<?> page, List<? extends DocWriteRequest<?>> requests) {
+        if (!(page instanceof TrackedPage)) {
+            return;
+        }
+        Page state = ((TrackedPage<?>) page).state;
+        if (requests.isEmpty()) {
+            complete(state);
+            return;
+        }
+        state.pending.set(requests.size());
+        for (DocWriteRequest<?> request : requests) {
+            requestPages.put(request, state);
+        }
+    }
+
+    /**
+     * bulk返回后逐条确认, bulkResponse为null表示整个请求失败
+     * 只有新建(CREATED)的文档计入文档数; 继续重建时重写的文档为UPDATED, 跨页重复的id按外部版本写入,
+     * 版本不大于已写入的版本时返回409, 说明已有同样新或更新的内容, 视为已确认但不计数
+     */
+    public void onBulk(BulkRequest bulkRequest, BulkResponse bulkResponse) {
+        List<DocWriteRequest<?>> requests = bulkRequest.requests();
+        for (int i = 0; i < requests.size(); i++) {
+            Page page = requestPages.remove(requests.get(i));
+            if (page == null) {
+                continue;
+            }
+            BulkItemResponse item = bulkResponse == null ? null : bulkResponse.getItems()[i];
+            if (item == null) {
+                page.failed = true;
+            } else if (item.isFailed()) {
+                if (item.getFailure().getStatus() != RestStatus.CONFLICT) {
+                    page.failed = true;
+                }
+            } else if (item.getResponse().getResult() == DocWriteResponse.Result.CREATED) {
+                page.created.incrementAndGet();
+                createdDocs.incrementAndGet();
+            }
+            if (page.pending.decrementAndGet() == 0) {
+                complete(page);
+            }
+        }
+    }
+
+    /**
+     * 所有切片都已读取完毕, 且读取的每一页都已写入成功
+     */
+    public boolean isComplete() {
+        for (SliceState slice : slices.values()) {
+            if (!slice.isDone()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 已提交到检查点的新建文档数, 包含之前中断的重建, 用于估算剩余时间
+     */
+    public long getDocs() {
+        long docs = 0;
+        for (SliceState slice : slices.values()) {
+            docs += slice.checkpoint.getDocs();
+        }
+        return docs;
+    }
+
+    /**
+     * 本次运行中新建的文档数, 不论所在页是否已提交到检查点
+     */
+    public long getCreatedDocs() {
+        return createdDocs.get();
+    }
+
+    /**
+     * 流水线结束后标记已完成的切片并保存检查点
+     */
+    public void finish() {
+        for (SliceState slice : slices.values()) {
+            synchronized (slice) {
+                slice.checkpoint.setDone(slice.isDone());
+            }
+        }
+        save(true);
+    }
+
+    public List<SliceCheckpoint> getIncompleteSlices() {
+        List<SliceCheckpoint> ret = new ArrayList<>();
+        for (SliceState slice : slices.values()) {
+            if (!slice.isDone()) {
+                ret.add(slice.checkpoint);
+            }
+        }
+        return ret;
+    }
+
+    private <T> List<T> read(SliceState slice, Callable<List<T>> reader) throws Exception {
+        try {
+            return reader.call();
+        } catch (Exception e) {
+            slice.failed = true;
+            throw e;
+        }
+    }
+
+    private void complete(Page page) {
+        SliceState slice = page.slice;
+        boolean advanced = false;
+        synchronized (slice) {
+            if (page.failed) {
+                slice.failed = true;
+                return;
+            }
+            page.completed = true;
+            Map.Entry<Long, Page> first;
+            while ((first = slice.pages.firstEntry()) != null && first.getKey() == slice.nextCommitSeq && first.getValue().completed) {
+                slice.pages.pollFirstEntry();
+                slice.checkpoint.setCursor(first.getValue().cursorAfter);
+                slice.checkpoint.setDocs(slice.checkpoint.getDocs() + first.getValue().created.get());
+                slice.nextCommitSeq++;
+                advanced = true;
+            }
+        }
+        if (advanced) {
+            save(false);
+        }
+    }
+
+    private synchronized void save(boolean force) {
+        long now = System.currentTimeMillis();
+        if (!force && now - lastSaveMillis < saveIntervalMillis) {
+            return;
+        }
+        lastSaveMillis = now;
+        checkpoint.setUpdateTime(now);
+        try {
+            store.save(checkpoint);
+        } catch (Exception e) {
+            logger.error("save rebuild checkpoint of index-{} error", checkpoint.getTargetIndex(), e);
+        }
+    }
+
+    private static class SliceState {
+        private final SliceCheckpoint checkpoint;
+        private final TreeMap<Long, Page> pages = new TreeMap<>();
+        private long nextCommitSeq;
+        private long nextFetchSeq;
+        private volatile boolean exhausted;
+        private volatile boolean failed;
+
+        private SliceState(SliceCheckpoint checkpoint, long nextCommitSeq) {
+            this.checkpoint = checkpoint;
+            this.nextCommitSeq = nextCommitSeq;
+            this.nextFetchSeq = nextCommitSeq;
+            this.exhausted = checkpoint.isDone();
+        }
+
+        private synchronized Page register(long seq, long cursorAfter) {
+            Page page = new Page(this, cursorAfter);
+            pages.put(seq, page);
+            return page;
+        }
+
+        private synchronized boolean isDone() {
+            return exhausted && !failed && pages.isEmpty();
+        }
+    }
+
+    private static class Page {
+        private final SliceState slice;
+        private final long cursorAfter;
+        private final AtomicInteger pending = new AtomicInteger();
+        private final AtomicInteger created = new AtomicInteger();
+        private volatile boolean failed;
+        private volatile boolean completed;
+
+        private Page(SliceState slice, long cursorAfter) {
+            this.slice = slice;
+            this.cursorAfter = cursorAfter;
+        }
+    }
+
+    /**
+     * 携带进度信息的一页VO, 在流水线各阶段之间原样传递
+     */
+    private static class TrackedPage<T> extends ArrayList<T> {
+        private final Page state;
+
+        private TrackedPage(List<T> page, Page state) {
+            super(page);
+            this.state = state;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.ra.elasticsearch.rebuild;
+
+/**
+ * 单个数据源切片的重建进度
+ * offset分页时cursor为下一页的页号, 主键分页时cursor为已写入的最大主键, max为切片主键上界
+ */
+public class SliceCheckpoint {
+
+    private String id;
+    private long cursor;
+    private long max;
+    private long docs;
+    private boolean done;
+
+    public SliceCheckpoint() {
+    }
+
+    public SliceCheckpoint(String id, long cursor, long max) {
+        this.id = id;
+        this.cursor = cursor;
+        this.max = max;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public long getCursor() {
+        return cursor;
+    }
+
+    public void setCursor(long cursor) {
+        this.cursor = cursor;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public void setMax(long max) {
+        this.max = max;
+    }
+
+    public long getDocs() {
+        return docs;
+    }
+
+    public void setDocs(long docs) {
+        this.docs = docs;
+    }
+
+    public boolean isDone() {
+        return done;
+    }
+
+    public void setDone(boolean done) {
+        this.done = done;
+    }
+
+    @Override
+    public String toString() {
+        return id + "{cursor=" + cursor + ", docs=" + docs + ", done=" + done + "}";
+    }
+}
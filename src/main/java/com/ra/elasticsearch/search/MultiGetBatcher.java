@@ -0,0 +1,107 @@
+package com.ra.elasticsearch.search;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * 合并并发的单id读取: 窗口期内的get请求去重后通过一次批量读取完成, 达到批量上限时立即发出
+ * loader需异步执行, 不能阻塞调度线程
+ */
+public class MultiGetBatcher<T> {
+
+    private final String name;
+    private final long windowMicros;
+    private final int maxBatchSize;
+    private final Function<List<String>, CompletableFuture<Map<String, T>>> loader;
+    private final ScheduledExecutorService scheduler;
+    private final Object lock = new Object();
+    private Map<String, CompletableFuture<T>> pending = new LinkedHashMap<>();
+    private Logger logger = LoggerFactory.getLogger(MultiGetBatcher.class);
+
+    public MultiGetBatcher(String name, long windowMicros, int maxBatchSize,
+                           Function<List<String>, CompletableFuture<Map<String, T>>> loader) {
+        this.name = name;
+        this.windowMicros = Math.max(1, windowMicros);
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.loader = loader;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "es-mget-" + name);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 提交一次读取, 文档不存在时future结果为null
+     */
+    public CompletableFuture<T> load(String id) {
+        CompletableFuture<T> future;
+        Map<String, CompletableFuture<T>> fullBatch = null;
+        boolean schedule = false;
+        synchronized (lock) {
+            future = pending.get(id);
+            if (future != null) {
+                return future;
+            }
+            future = new CompletableFuture<>();
+            pending.put(id, future);
+            if (pending.size() >= maxBatchSize) {
+                fullBatch = pending;
+                pending = new LinkedHashMap<>();
+            } else if (pending.size() == 1) {
+                schedule = true;
+            }
+        }
+        if (fullBatch != null) {
+            dispatch(fullBatch);
+        } else if (schedule) {
+            scheduler.schedule(this::flush, windowMicros, TimeUnit.MICROSECONDS);
+        }
+        return future;
+    }
+
+    public void close() {
+        scheduler.shutdown();
+        flush();
+    }
+
+    private void flush() {
+        Map<String, CompletableFuture<T>> batch;
+        synchronized (lock) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            pending = new LinkedHashMap<>();
+        }
+        dispatch(batch);
+    }
+
+    private void dispatch(Map<String, CompletableFuture<T>> batch) {
+        CompletableFuture<Map<String, T>> result;
+        try {
+            result = loader.apply(new ArrayList<>(batch.keySet()));
+        } catch (Exception e) {
+            result = new CompletableFuture<>();
+            result.completeExceptionally(e);
+        }
+        result.whenComplete((documents, e) -> {
+            if (e != null) {
+                logger.error("[ES MGET ERROR] index: {}, ids: {}, errorMsg: {}", name, batch.size(), e.getMessage(), e);
+                batch.values().forEach(future -> future.completeExceptionally(e));
+                return;
+            }
+            batch.forEach((id, future) -> future.complete(documents.get(id)));
+        });
+    }
+}
@@ -0,0 +1,124 @@
+package com.ra.elasticsearch.search;
+
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.search.SearchHit;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+
+/**
+ * 分页遍历搜索结果, 拿到当前页后立即异步请求下一页, 调用方消费当前页时下一页已在路上
+ */
+public abstract class PrefetchPageIterator implements Iterator<SearchHit[]>, Closeable {
+
+    private CompletableFuture<SearchResponse> pending;
+    private SearchHit[] current;
+    private boolean finished;
+    private volatile boolean closed;
+
+    /**
+     * 请求第一页
+     */
+    protected abstract CompletableFuture<SearchResponse> fetchFirst();
+
+    /**
+     * 根据上一页的结果请求下一页
+     */
+    protected abstract CompletableFuture<SearchResponse> fetchNext(SearchResponse previous);
+
+    /**
+     * 上一页之后是否还有数据
+     */
+    protected abstract boolean hasMore(SearchResponse previous);
+
+    /**
+     * 释放服务端资源, 如清除scroll上下文
+     */
+    protected void release(SearchResponse last) {
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (current != null) {
+            return true;
+        }
+        if (finished || closed) {
+            return false;
+        }
+        if (pending == null) {
+            pending = fetchFirst();
+        }
+        SearchResponse searchResponse;
+        try {
+            searchResponse = pending.join();
+        } catch (CompletionException e) {
+            finished = true;
+            close();
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+        SearchHit[] hits = searchResponse.getHits().getHits();
+        if (hits.length == 0) {
+            finished = true;
+            pending = null;
+            release(searchResponse);
+            return false;
+        }
+        current = hits;
+        if (hasMore(searchResponse)) {
+            pending = fetchNext(searchResponse);
+        } else {
+            finished = true;
+            pending = null;
+            release(searchResponse);
+        }
+        return true;
+    }
+
+    @Override
+    public SearchHit[] next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        SearchHit[] ret = current;
+        current = null;
+        return ret;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        current = null;
+        if (pending != null) {
+            pending.whenComplete((searchResponse, e) -> {
+                if (searchResponse != null) {
+                    release(searchResponse);
+                }
+            });
+            pending = null;
+        }
+    }
+
+    protected static CompletableFuture<SearchResponse> execute(Consumer<ActionListener<SearchResponse>> action) {
+        CompletableFuture<SearchResponse> future = new CompletableFuture<>();
+        action.accept(new ActionListener<SearchResponse>() {
+            @Override
+            public void onResponse(SearchResponse searchResponse) {
+                future.complete(searchResponse);
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+}
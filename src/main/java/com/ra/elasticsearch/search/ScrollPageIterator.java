@@ -0,0 +1,66 @@
+package com.ra.elasticsearch.search;
+
+import org.elasticsearch.action.search.ClearScrollRequest;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.SearchScrollRequest;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 基于scroll的全量遍历, 可配合slice由多个迭代器并行读取, 关闭或读完时清除scroll上下文
+ */
+public class ScrollPageIterator extends PrefetchPageIterator {
+
+    private final RestHighLevelClient client;
+    private final String[] indices;
+    private final SearchSourceBuilder source;
+    private final TimeValue keepAlive;
+    private final String routing;
+    private Logger logger = LoggerFactory.getLogger(ScrollPageIterator.class);
+
+    public ScrollPageIterator(RestHighLevelClient client, SearchSourceBuilder source, TimeValue keepAlive, String routing, String... indices) {
+        this.client = client;
+        this.indices = indices;
+        this.source = source;
+        this.keepAlive = keepAlive;
+        this.routing = routing;
+    }
+
+    @Override
+    protected CompletableFuture<SearchResponse> fetchFirst() {
+        SearchRequest searchRequest = new SearchRequest(indices).source(source).routing(routing).scroll(keepAlive);
+        return execute(listener -> client.searchAsync(searchRequest, RequestOptions.DEFAULT, listener));
+    }
+
+    @Override
+    protected CompletableFuture<SearchResponse> fetchNext(SearchResponse previous) {
+        SearchScrollRequest searchScrollRequest = new SearchScrollRequest(previous.getScrollId()).scroll(keepAlive);
+        return execute(listener -> client.scrollAsync(searchScrollRequest, RequestOptions.DEFAULT, listener));
+    }
+
+    @Override
+    protected boolean hasMore(SearchResponse previous) {
+        return previous.getScrollId() != null;
+    }
+
+    @Override
+    protected void release(SearchResponse last) {
+        if (last.getScrollId() == null) {
+            return;
+        }
+        try {
+            ClearScrollRequest clearScrollRequest = new ClearScrollRequest();
+            clearScrollRequest.addScrollId(last.getScrollId());
+            client.clearScroll(clearScrollRequest, RequestOptions.DEFAULT);
+        } catch (Exception e) {
+            logger.warn("clear scroll error, index: {}, errorMsg: {}", String.join(",", indices), e.getMessage());
+        }
+    }
+}
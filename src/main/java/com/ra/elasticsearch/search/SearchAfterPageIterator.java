@@ -0,0 +1,51 @@
+package com.ra.elasticsearch.search;
+
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 基于search_after的深分页遍历, 不受max_result_window限制, 也不占用服务端scroll上下文
+ * source的排序必须能唯一确定文档顺序
+ */
+public class SearchAfterPageIterator extends PrefetchPageIterator {
+
+    private final RestHighLevelClient client;
+    private final String[] indices;
+    private final SearchSourceBuilder source;
+    private final String routing;
+
+    public SearchAfterPageIterator(RestHighLevelClient client, SearchSourceBuilder source, String routing, String... indices) {
+        this.client = client;
+        this.indices = indices;
+        this.source = source;
+        this.routing = routing;
+    }
+
+    @Override
+    protected CompletableFuture<SearchResponse> fetchFirst() {
+        return search(source);
+    }
+
+    @Override
+    protected CompletableFuture<SearchResponse> fetchNext(SearchResponse previous) {
+        SearchHit[] hits = previous.getHits().getHits();
+        SearchSourceBuilder nextSource = source.copyWithNewSlice(source.slice()).searchAfter(hits[hits.length - 1].getSortValues());
+        return search(nextSource);
+    }
+
+    @Override
+    protected boolean hasMore(SearchResponse previous) {
+        return previous.getHits().getHits().length >= source.size();
+    }
+
+    private CompletableFuture<SearchResponse> search(SearchSourceBuilder searchSource) {
+        SearchRequest searchRequest = new SearchRequest(indices).source(searchSource).routing(routing);
+        return execute(listener -> client.searchAsync(searchRequest, RequestOptions.DEFAULT, listener));
+    }
+}
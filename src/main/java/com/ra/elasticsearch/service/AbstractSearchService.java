@@ -1,71 +1,241 @@
 package com.ra.elasticsearch.service;
 
-import com.alibaba.fastjson.JSONObject;
-import com.alibaba.fastjson.serializer.SerializerFeature;
-import com.ra.elasticsearch.annotation.SearchId;
+import com.carrotsearch.hppc.cursors.ObjectObjectCursor;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.ra.elasticsearch.bulk.AdaptiveBulkSizer;
+import com.ra.elasticsearch.bulk.BulkBuffer;
+import com.ra.elasticsearch.bulk.BulkSender;
+import com.ra.elasticsearch.bulk.WriteBehindBuffer;
+import com.ra.elasticsearch.cache.DocumentCache;
+import com.ra.elasticsearch.cache.QueryResultCache;
+import com.ra.elasticsearch.codec.ParallelDecoder;
+import com.ra.elasticsearch.codec.SourceCodec;
+import com.ra.elasticsearch.config.ElasticsearchClients;
 import com.ra.elasticsearch.config.ElasticsearchProperties;
+import com.ra.elasticsearch.enums.ESType;
+import com.ra.elasticsearch.enums.WriteOperation;
+import com.ra.elasticsearch.id.IdStrategy;
+import com.ra.elasticsearch.lifecycle.RolloverManager;
+import com.ra.elasticsearch.lifecycle.RolloverPolicy;
+import com.ra.elasticsearch.meta.MappingDiff;
+import com.ra.elasticsearch.meta.MappingField;
+import com.ra.elasticsearch.meta.VOMetadata;
+import com.ra.elasticsearch.metrics.IndexMetrics;
+import com.ra.elasticsearch.pipeline.IndexPipeline;
+import com.ra.elasticsearch.pipeline.KeyRange;
+import com.ra.elasticsearch.pipeline.KeyRangePageSource;
+import com.ra.elasticsearch.pipeline.OffsetPageSource;
+import com.ra.elasticsearch.pipeline.PageSource;
+import com.ra.elasticsearch.rebuild.CheckpointStore;
+import com.ra.elasticsearch.rebuild.FileCheckpointStore;
+import com.ra.elasticsearch.rebuild.RebuildCheckpoint;
+import com.ra.elasticsearch.rebuild.RebuildJournal;
+import com.ra.elasticsearch.rebuild.RebuildProgress;
+import com.ra.elasticsearch.rebuild.SliceCheckpoint;
+import com.ra.elasticsearch.search.MultiGetBatcher;
+import com.ra.elasticsearch.search.PrefetchPageIterator;
+import com.ra.elasticsearch.search.ScrollPageIterator;
+import com.ra.elasticsearch.search.SearchAfterPageIterator;
+import com.ra.elasticsearch.sync.ContentFingerprints;
 import com.ra.elasticsearch.utils.IndexBuildUtil;
-import org.apache.commons.codec.digest.Md5Crypt;
+import com.ra.elasticsearch.utils.TaskUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.admin.cluster.health.ClusterHealthRequest;
+import org.elasticsearch.action.admin.cluster.health.ClusterHealthResponse;
 import org.elasticsearch.action.admin.indices.alias.IndicesAliasesRequest;
 import org.elasticsearch.action.admin.indices.alias.get.GetAliasesRequest;
 import org.elasticsearch.action.admin.indices.delete.DeleteIndexRequest;
+import org.elasticsearch.action.admin.indices.forcemerge.ForceMergeRequest;
 import org.elasticsearch.action.admin.indices.get.GetIndexRequest;
+import org.elasticsearch.action.admin.indices.mapping.get.GetMappingsRequest;
+import org.elasticsearch.action.admin.indices.mapping.get.GetMappingsResponse;
+import org.elasticsearch.action.admin.indices.refresh.RefreshRequest;
+import org.elasticsearch.action.admin.indices.settings.get.GetSettingsRequest;
+import org.elasticsearch.action.admin.indices.settings.get.GetSettingsResponse;
 import org.elasticsearch.action.admin.indices.settings.put.UpdateSettingsRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
 import org.elasticsearch.action.bulk.BulkRequest;
 import org.elasticsearch.action.bulk.BulkResponse;
 import org.elasticsearch.action.delete.DeleteRequest;
+import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.action.get.MultiGetItemResponse;
+import org.elasticsearch.action.get.MultiGetRequest;
 import org.elasticsearch.action.index.IndexRequest;
 import org.elasticsearch.action.index.IndexResponse;
+import org.elasticsearch.action.search.SearchRequest;
 import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.action.support.WriteRequest;
 import org.elasticsearch.action.support.master.AcknowledgedResponse;
 import org.elasticsearch.client.GetAliasesResponse;
 import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestClient;
 import org.elasticsearch.client.RestHighLevelClient;
 import org.elasticsearch.cluster.metadata.AliasMetaData;
+import org.elasticsearch.cluster.metadata.MappingMetaData;
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.collect.ImmutableOpenMap;
 import org.elasticsearch.common.settings.Settings;
-import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
 import org.elasticsearch.index.VersionType;
+import org.elasticsearch.index.reindex.BulkByScrollResponse;
+import org.elasticsearch.index.reindex.DeleteByQueryRequest;
+import org.elasticsearch.index.query.BoolQueryBuilder;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.rest.RestStatus;
 import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.fetch.subphase.FetchSourceContext;
 import org.elasticsearch.search.fetch.subphase.highlight.HighlightField;
+import org.elasticsearch.search.slice.SliceBuilder;
+import org.elasticsearch.search.sort.FieldSortBuilder;
+import org.elasticsearch.search.sort.SortBuilder;
+import org.elasticsearch.search.sort.SortBuilders;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.util.CollectionUtils;
+import org.springframework.util.StringUtils;
 
 import javax.annotation.PostConstruct;
-import java.beans.BeanInfo;
-import java.beans.Introspector;
-import java.beans.PropertyDescriptor;
-import java.lang.reflect.Field;
-import java.lang.reflect.Method;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.*;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
-public abstract class AbstractSearchService<T> implements BaseSearchService {
+public abstract class AbstractSearchService<T> implements BaseSearchService<T> {
 
     private final static String INDEX_TYPE = "type";
     private final static int MAX_PAGE_SIZE = 500;
-    private final static int BATCH_SIZE = 150000;
+    private final static int KEY_RANGE_SPLIT_FACTOR = 4;
+    private final static String ID_FIELD_NAME = "_id";
+    private final static String DOC_FIELD_NAME = "_doc";
+    private final static String INDEX_NUMBER_OF_SHARDS = "index.number_of_shards";
+    private final static String INDEX_NUMBER_OF_REPLICAS = "index.number_of_replicas";
+    private final static String INDEX_REFRESH_INTERVAL = "index.refresh_interval";
+    private final static String INDEX_TRANSLOG_DURABILITY = "index.translog.durability";
+    private final static String INDEX_ROUTING_PARTITION_SIZE = "index.routing_partition_size";
+    private final static String RAW_FIELD_SUFFIX = "." + IndexBuildUtil.RAW_STRING;
+    /**
+     * 查询使用的客户端, 开启读写分离时为读客户端
+     */
     @Autowired
     protected RestHighLevelClient client;
+    @Autowired
+    private ElasticsearchClients elasticsearchClients;
+    /**
+     * 实时写入、批量写入与索引管理使用的客户端
+     */
+    protected RestHighLevelClient writeClient;
     private Logger logger = LoggerFactory.getLogger(AbstractSearchService.class);
     @Autowired
     private ElasticsearchProperties elasticsearchProperties;
-    private Field searchIdField;
+    @Autowired
+    private SourceCodec sourceCodec;
+    @Autowired
+    private ParallelDecoder parallelDecoder;
+    @Autowired
+    private IdStrategy idStrategy;
+    private VOMetadata voMetadata;
     private Class<T> voClazz;
     private WriteRequest.RefreshPolicy refreshPolicy;
+    private BulkSender bulkSender;
+    private WriteBehindBuffer writeBehindBuffer;
+    private volatile RebuildJournal rebuildJournal;
+    private String routingFilterField;
+    private RolloverManager rolloverManager;
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+    private QueryResultCache<T> queryResultCache;
+    private DocumentCache<T> documentCache;
+    private MultiGetBatcher<T> multiGetBatcher;
+    private IndexMetrics indexMetrics;
+    @Autowired(required = false)
+    private CheckpointStore checkpointStore;
+    private ContentFingerprints contentFingerprints;
 
     @PostConstruct
     public void init() {
+        voMetadata = VOMetadata.of(getClazz());
+        writeClient = elasticsearchClients.write();
+        routingFilterField = resolveRoutingFilterField();
         refreshPolicy = WriteRequest.RefreshPolicy.parse(elasticsearchProperties.getRefreshPolicy());
+        AdaptiveBulkSizer bulkSizer = new AdaptiveBulkSizer(elasticsearchProperties.getBulkMinActions(),
+                elasticsearchProperties.getBulkMaxActions(), elasticsearchProperties.getBulkInitialActions(),
+                elasticsearchProperties.getBulkTargetLatencyMillis());
+        bulkSender = new BulkSender(writeClient, bulkSizer, getIndexName(), elasticsearchProperties.getBulkMaxRetries(),
+                elasticsearchProperties.getBulkBackoffMillis(), elasticsearchProperties.getBulkMaxBackoffMillis(),
+                elasticsearchProperties.getBulkMaxInFlightBytes());
+        if (checkpointStore == null) {
+            checkpointStore = new FileCheckpointStore(elasticsearchProperties.getCheckpointDir());
+        }
+        indexMetrics = new IndexMetrics(meterRegistry == null ? Metrics.globalRegistry : meterRegistry, getIndexName());
+        indexMetrics.bindInFlightBytes(bulkSender, BulkSender::getInFlightBytes);
+        if (elasticsearchProperties.isWriteBehindEnabled()) {
+            writeBehindBuffer = new WriteBehindBuffer(getIndexName(), elasticsearchProperties.getWriteBehindWindowMillis(),
+                    this::flushWriteBehind);
+        }
+        if (elasticsearchProperties.isQueryCacheEnabled()) {
+            queryResultCache = new QueryResultCache<>(getIndexName(), elasticsearchProperties.getQueryCacheMaxDocs(),
+                    elasticsearchProperties.getQueryCacheExpireMillis());
+            if (meterRegistry != null) {
+                queryResultCache.bindTo(meterRegistry);
+            }
+        }
+        if (elasticsearchProperties.isDocumentCacheEnabled()) {
+            documentCache = new DocumentCache<>(getIndexName(), elasticsearchProperties.getDocumentCacheMaxSize(),
+                    elasticsearchProperties.getDocumentCacheExpireMillis());
+            if (meterRegistry != null) {
+                documentCache.bindTo(meterRegistry);
+            }
+        }
+        if (elasticsearchProperties.getMgetBatchWindowMicros() > 0) {
+            multiGetBatcher = new MultiGetBatcher<>(getIndexName(), elasticsearchProperties.getMgetBatchWindowMicros(),
+                    elasticsearchProperties.getMgetBatchMaxSize(), ids -> loadDocuments(ids, null));
+        }
+        RolloverPolicy rolloverPolicy = getRolloverPolicy();
+        if (rolloverPolicy != null) {
+            rolloverManager = new RolloverManager(writeClient, getIndexName(), INDEX_TYPE, getClazz(), rolloverPolicy,
+                    buildRolloverSettings(rolloverPolicy));
+            try {
+                rolloverManager.bootstrap();
+            } catch (Exception e) {
+                logger.error("bootstrap rollover index-{} error", getIndexName(), e);
+            }
+            rolloverManager.start(elasticsearchProperties.getRolloverCheckIntervalMillis());
+            logger.info("index-{} in rollover mode, {}", getIndexName(), rolloverPolicy);
+        }
+        if (elasticsearchProperties.isDeltaSyncEnabled() && rolloverManager == null) {
+            contentFingerprints = new ContentFingerprints();
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (writeBehindBuffer != null) {
+            writeBehindBuffer.close();
+        }
+        if (rolloverManager != null) {
+            rolloverManager.close();
+        }
+        if (multiGetBatcher != null) {
+            multiGetBatcher.close();
+        }
     }
 
     protected abstract String getIndexName();
@@ -86,43 +256,33 @@ public abstract class AbstractSearchService<T> implements BaseSearchService {
      */
     protected abstract List<T> getListVOList(int offset, int pageSize);
 
-    protected String getSearchId(T t) {
-        try {
-            Field field = getSearchIdField();
-            PropertyDescriptor propertyDescriptor = BeanUtils.getPropertyDescriptor(t.getClass(), field.getName());
-            Method readMethod = propertyDescriptor.getReadMethod();
-            Object invoke = readMethod.invoke(t);
-            String idStr = invoke.toString();
-            byte[] bytes = idStr.getBytes();
-            if (bytes.length > 512) {
-                idStr = Md5Crypt.md5Crypt(bytes);
-            }
-            return idStr;
-        } catch (Exception e) {
-            logger.error(e.getMessage(), e);
+    /**
+     * VO的游标主键, 实现{@link KeyRangeSupport}时使用, 默认取searchId字段的值, 组合searchId时需要覆盖
+     */
+    protected long getListVOKey(T t) {
+        Object id = getSearchIdValue(t);
+        if (id instanceof Number) {
+            return ((Number) id).longValue();
         }
-        return null;
+        return Long.parseLong(id.toString());
     }
 
-    private Field getSearchIdField() {
-        if (searchIdField != null) {
-            return searchIdField;
+    /**
+     * 文档id, 由{@link #getIdStrategy()}按searchId字段值生成, searchId为空时抛出IllegalArgumentException
+     */
+    protected String getSearchId(T t) {
+        if (voMetadata.isCompositeSearchId()) {
+            return getIdStrategy().toCompositeId(voMetadata.readSearchIdValues(t));
         }
+        return getIdStrategy().toId(getSearchIdValue(t));
+    }
 
-        List<Field> fieldList = new ArrayList<>();
-        Class tempClass = getClazz();
-        while (tempClass != null) {
-            fieldList.addAll(Arrays.asList(tempClass.getDeclaredFields()));
-            tempClass = tempClass.getSuperclass();
-        }
+    protected IdStrategy getIdStrategy() {
+        return idStrategy;
+    }
 
-        for (Field field : fieldList) {
-            if (field.isAnnotationPresent(SearchId.class)) {
-                searchIdField = field;
-                return searchIdField;
-            }
-        }
-        throw new IllegalArgumentException(voClazz == null ? null : voClazz.getName() + " must have a searchId field");
+    private Object getSearchIdValue(T t) {
+        return voMetadata.readSearchId(t);
     }
 
     /**
@@ -130,6 +290,29 @@ public abstract class AbstractSearchService<T> implements BaseSearchService {
      */
     public abstract List<T> getVOListById(String id);
 
+    /**
+     * 数据源的VO总数, 用于估算全量重建的剩余时间, 返回负数时不估算
+     */
+    protected long getListVOCount() {
+        return -1;
+    }
+
+    /**
+     * 滚动索引策略, 返回非null时索引按代滚动: 写入写别名({@link #getIndexName()}_write)指向的当前代,
+     * 查询{@link #getIndexName()}读别名覆盖的全部代, 适用于只追加写入的VO
+     */
+    protected RolloverPolicy getRolloverPolicy() {
+        return null;
+    }
+
+    /**
+     * 删除文档时使用的routing, VO带{@link com.ra.elasticsearch.annotation.SearchRouting}字段时需要覆盖,
+     * 否则删除请求会因缺少routing被拒绝
+     */
+    protected String getRoutingById(String id) {
+        return null;
+    }
+
     public List<T> transformSearchResultData(SearchResponse searchResponse) {
         SearchHit[] hits = searchResponse.getHits().getHits();
         return transformSearchResultData(hits);
@@ -141,112 +324,1133 @@ public abstract class AbstractSearchService<T> implements BaseSearchService {
     }
 
     public List<T> transformSearchResultData(SearchHit[] hits) {
-        List<T> ret = new ArrayList<>(hits.length);
-        for (SearchHit hit : hits) {
-            String sourceString = hit.getSourceAsString();
-            T vo = JSONObject.parseObject(sourceString, getClazz());
-            ret.add(vo);
+        return indexMetrics.record(IndexMetrics.TRANSFORM, () -> parallelDecoder.decode(hits, this::decode));
+    }
+
+    /**
+     * 惰性解码命中结果, 适用于导出等大批量消费场景
+     */
+    public Stream<T> streamSearchResultData(SearchHit[] hits) {
+        return Arrays.stream(hits).map(this::decode);
+    }
+
+    public Iterator<T> iterateSearchResultData(SearchHit[] hits) {
+        return streamSearchResultData(hits).iterator();
+    }
+
+    /**
+     * 基于search_after流式读取全部匹配文档, 消费当前页时预取下一页, 使用完需关闭stream
+     * sorts需能唯一确定文档顺序, 最后一个排序字段不是_id或searchId字段时追加_id作为tiebreaker
+     */
+    public Stream<T> stream(QueryBuilder query, List<SortBuilder<?>> sorts, int pageSize) {
+        return stream(null, query, sorts, pageSize);
+    }
+
+    /**
+     * 只读取routing对应分片上该路由键的文档, routing为null时等同于{@link #stream(QueryBuilder, List, int)}
+     */
+    public Stream<T> stream(String routing, QueryBuilder query, List<SortBuilder<?>> sorts, int pageSize) {
+        SearchSourceBuilder source = new SearchSourceBuilder().query(routingQuery(routing, query)).size(pageSize);
+        if (!CollectionUtils.isEmpty(sorts)) {
+            sorts.forEach(source::sort);
+        }
+        if (!hasTiebreaker(sorts)) {
+            source.sort(SortBuilders.fieldSort(ID_FIELD_NAME));
+        }
+        return toStream(new SearchAfterPageIterator(client, source, routing, getIndexName()));
+    }
+
+    /**
+     * 基于sliced scroll并行导出全部匹配文档, 每个slice由独立的scroll读取, 关闭stream时清除全部scroll上下文
+     */
+    public Stream<T> scrollStream(QueryBuilder query, int pageSize, int slices) {
+        return scrollStream(null, query, pageSize, slices);
+    }
+
+    public Stream<T> scrollStream(String routing, QueryBuilder query, int pageSize, int slices) {
+        TimeValue keepAlive = TimeValue.parseTimeValue(elasticsearchProperties.getScrollKeepAlive(), "es.scrollKeepAlive");
+        SearchSourceBuilder source = new SearchSourceBuilder().query(routingQuery(routing, query)).size(pageSize)
+                .sort(SortBuilders.fieldSort(DOC_FIELD_NAME));
+        if (slices <= 1) {
+            return toStream(new ScrollPageIterator(client, source, keepAlive, routing, getIndexName()));
+        }
+        List<ScrollPageIterator> iterators = new ArrayList<>(slices);
+        for (int i = 0; i < slices; i++) {
+            iterators.add(new ScrollPageIterator(client, source.copyWithNewSlice(new SliceBuilder(i, slices)), keepAlive, routing, getIndexName()));
+        }
+        return iterators.parallelStream().flatMap(this::toStream).onClose(() -> iterators.forEach(ScrollPageIterator::close));
+    }
+
+    /**
+     * 查询并解码为VO列表, 开启查询缓存时相同条件的查询直接返回缓存结果, 缓存的VO不能修改
+     */
+    public List<T> search(SearchSourceBuilder source) throws IOException {
+        return search(null, source);
+    }
+
+    public List<T> search(String routing, SearchSourceBuilder source) throws IOException {
+        if (queryResultCache == null) {
+            return doSearch(routing, source);
+        }
+        return queryResultCache.get(routing, source, () -> doSearch(routing, source));
+    }
+
+    private List<T> doSearch(String routing, SearchSourceBuilder source) throws IOException {
+        SearchResponse searchResponse = client.search(buildSearchRequest(routing, source), RequestOptions.DEFAULT);
+        return transformSearchResultData(searchResponse);
+    }
+
+    /**
+     * 窗口期内并发的get合并为一次_mget, 开启文档缓存时优先读取缓存
+     */
+    @Override
+    public T get(String id) throws IOException {
+        T document = documentCache == null ? null : documentCache.getIfPresent(id);
+        if (document != null) {
+            return document;
+        }
+        long readGeneration = documentCache == null ? 0 : documentCache.generation();
+        CompletableFuture<T> future = multiGetBatcher == null
+                ? loadDocuments(Collections.singletonList(id), null).thenApply(documents -> documents.get(id))
+                : multiGetBatcher.load(id);
+        document = await(future);
+        if (document != null && documentCache != null) {
+            documentCache.putAll(Collections.singletonMap(id, document), readGeneration);
+        }
+        return document;
+    }
+
+    @Override
+    public Map<String, T> multiGet(Collection<String> ids) throws IOException {
+        Map<String, T> cached = documentCache == null ? Collections.emptyMap() : documentCache.getAllPresent(ids);
+        Set<String> missing = new LinkedHashSet<>();
+        for (String id : ids) {
+            if (!cached.containsKey(id)) {
+                missing.add(id);
+            }
+        }
+        long readGeneration = documentCache == null ? 0 : documentCache.generation();
+        Map<String, T> loaded = missing.isEmpty() ? Collections.emptyMap() : await(loadDocuments(new ArrayList<>(missing), null));
+        if (documentCache != null && !loaded.isEmpty()) {
+            documentCache.putAll(loaded, readGeneration);
+        }
+        Map<String, T> result = new LinkedHashMap<>();
+        for (String id : ids) {
+            T document = cached.containsKey(id) ? cached.get(id) : loaded.get(id);
+            if (document != null) {
+                result.put(id, document);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 只读取includes指定的_source字段, 得到的VO只有部分字段, 不经过文档缓存
+     */
+    public Map<String, T> multiGet(Collection<String> ids, String... includes) throws IOException {
+        Map<String, T> loaded = await(loadDocuments(new ArrayList<>(new LinkedHashSet<>(ids)), includes));
+        Map<String, T> result = new LinkedHashMap<>();
+        for (String id : ids) {
+            if (loaded.containsKey(id)) {
+                result.put(id, loaded.get(id));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 文档缓存命中统计, 未开启文档缓存时返回null
+     */
+    public CacheStats getDocumentCacheStats() {
+        return documentCache == null ? null : documentCache.getStats();
+    }
+
+    /**
+     * 异步批量读取, includes为null时读取完整_source
+     * 滚动模式下读别名对应多个索引不能使用_mget, 改为ids查询
+     */
+    private CompletableFuture<Map<String, T>> loadDocuments(List<String> ids, String[] includes) {
+        CompletableFuture<Map<String, T>> future = new CompletableFuture<>();
+        FetchSourceContext fetchSourceContext = includes == null ? FetchSourceContext.FETCH_SOURCE
+                : new FetchSourceContext(true, includes, null);
+        if (rolloverManager != null) {
+            SearchSourceBuilder source = new SearchSourceBuilder().query(QueryBuilders.idsQuery().addIds(ids.toArray(new String[0])))
+                    .size(ids.size()).fetchSource(fetchSourceContext);
+            client.searchAsync(new SearchRequest(getIndexName()).source(source), RequestOptions.DEFAULT, ActionListener.wrap(searchResponse -> {
+                Map<String, T> documents = new HashMap<>();
+                for (SearchHit hit : searchResponse.getHits().getHits()) {
+                    documents.put(hit.getId(), decode(hit));
+                }
+                future.complete(documents);
+            }, future::completeExceptionally));
+            return future;
+        }
+        MultiGetRequest multiGetRequest = new MultiGetRequest().realtime(true);
+        for (String id : ids) {
+            multiGetRequest.add(new MultiGetRequest.Item(getIndexName(), id).routing(getRoutingById(id))
+                    .fetchSourceContext(fetchSourceContext));
+        }
+        client.mgetAsync(multiGetRequest, RequestOptions.DEFAULT, ActionListener.wrap(multiGetResponse -> {
+            Map<String, T> documents = new HashMap<>();
+            for (MultiGetItemResponse item : multiGetResponse.getResponses()) {
+                if (item.isFailed()) {
+                    throw new IllegalStateException("mget index: " + getIndexName() + ", id: " + item.getId() + " failed, "
+                            + item.getFailure().getMessage());
+                }
+                GetResponse getResponse = item.getResponse();
+                if (getResponse.isExists()) {
+                    documents.put(getResponse.getId(), getSourceCodec().decode(getResponse.getSourceAsBytesRef(), getClazz()));
+                }
+            }
+            future.complete(documents);
+        }, future::completeExceptionally));
+        return future;
+    }
+
+    private <R> R await(CompletableFuture<R> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while reading index-" + getIndexName());
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
         }
-        return ret;
+    }
+
+    /**
+     * 使文档缓存中的ids失效, ids为null时全部失效
+     */
+    private void invalidateDocuments(Collection<String> ids) {
+        if (documentCache == null) {
+            return;
+        }
+        if (ids == null) {
+            documentCache.invalidateAll();
+        } else {
+            documentCache.invalidateAll(ids);
+        }
+    }
+
+    /**
+     * 查询缓存命中统计, 未开启查询缓存时返回null
+     */
+    public CacheStats getQueryCacheStats() {
+        return queryResultCache == null ? null : queryResultCache.getStats();
+    }
+
+    /**
+     * 索引有写入或别名切换后使查询缓存失效
+     * refreshPolicy为none时写入在下次refresh后才可见, 期间的查询结果最多缓存queryCacheExpireMillis
+     */
+    protected void invalidateQueryCache() {
+        if (queryResultCache != null) {
+            queryResultCache.invalidateAll();
+        }
+    }
+
+    /**
+     * 指定routing的查询请求, 只访问routing对应的分片, 查询条件追加路由字段过滤
+     * 在source的浅拷贝上追加过滤, 不修改调用方传入的source
+     */
+    protected SearchRequest buildSearchRequest(String routing, SearchSourceBuilder source) {
+        if (routing == null || routingFilterField == null) {
+            return new SearchRequest(getIndexName()).routing(routing).source(source);
+        }
+        // copyWithNewSlice是7.6中唯一公开的浅拷贝, 保留原slice
+        SearchSourceBuilder routingSource = source.copyWithNewSlice(source.slice()).query(routingQuery(routing, source.query()));
+        return new SearchRequest(getIndexName()).routing(routing).source(routingSource);
+    }
+
+    /**
+     * 同一分片上有多个路由键的文档, 按路由字段过滤出routing对应的文档, VO没有可查询的路由字段时原样返回
+     */
+    protected QueryBuilder routingQuery(String routing, QueryBuilder query) {
+        if (routing == null || routingFilterField == null) {
+            return query;
+        }
+        BoolQueryBuilder boolQuery = QueryBuilders.boolQuery().filter(QueryBuilders.termQuery(routingFilterField, routing));
+        if (query != null) {
+            boolQuery.must(query);
+        }
+        return boolQuery;
+    }
+
+    /**
+     * 路由字段需带{@link com.ra.elasticsearch.annotation.SearchableField}注解才能过滤, TEXT类型使用raw子字段
+     */
+    private String resolveRoutingFilterField() {
+        String routingName = voMetadata.getRoutingName();
+        if (routingName == null) {
+            return null;
+        }
+        for (MappingField mappingField : voMetadata.getMappingFields()) {
+            if (mappingField.getName().equals(routingName)) {
+                return mappingField.getType() == ESType.TEXT ? routingName + RAW_FIELD_SUFFIX : routingName;
+            }
+        }
+        logger.warn("routing field {} of {} is not searchable, routing queries are not filtered", routingName, getClazz().getName());
+        return null;
+    }
+
+    private boolean hasTiebreaker(List<SortBuilder<?>> sorts) {
+        if (CollectionUtils.isEmpty(sorts)) {
+            return false;
+        }
+        SortBuilder<?> last = sorts.get(sorts.size() - 1);
+        if (!(last instanceof FieldSortBuilder)) {
+            return false;
+        }
+        String fieldName = ((FieldSortBuilder) last).getFieldName();
+        return ID_FIELD_NAME.equals(fieldName)
+                || (voMetadata.hasSearchIdField() && !voMetadata.isCompositeSearchId() && voMetadata.getSearchIdName().equals(fieldName));
+    }
+
+    private Stream<T> toStream(PrefetchPageIterator iterator) {
+        Spliterator<SearchHit[]> spliterator = Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false).onClose(iterator::close).flatMap(this::streamSearchResultData);
+    }
+
+    protected T decode(SearchHit hit) {
+        return getSourceCodec().decode(hit.getSourceRef(), getClazz());
+    }
+
+    /**
+     * _source编解码, 默认使用容器中的SourceCodec, 子类可覆盖为特定VO定制的实现
+     */
+    protected SourceCodec getSourceCodec() {
+        return sourceCodec;
     }
 
     public List<T> transformSearchResultDataWithHighlight(SearchHit[] hits, List<String> highlightFieldNames) {
-        List<T> ret = new ArrayList<>(hits.length);
-        for (SearchHit hit : hits) {
-            try {
-                String sourceString = hit.getSourceAsString();
-                T vo = JSONObject.parseObject(sourceString, getClazz());
-
-                BeanInfo beanInfo = Introspector.getBeanInfo(vo.getClass());
-                PropertyDescriptor[] propertyDescriptors = beanInfo.getPropertyDescriptors();
-                Map<String, Method> fieldNameWriteMethodMap =
-                        Stream.of(propertyDescriptors).filter(propertyDescriptor -> propertyDescriptor.getPropertyType() != Class.class)
-                                .collect(Collectors.toMap(PropertyDescriptor::getName, PropertyDescriptor::getWriteMethod));
-
-                if (!CollectionUtils.isEmpty(highlightFieldNames)) {
-                    for (String highlightFieldName : highlightFieldNames) {
-                        HighlightField highlightField = hit.getHighlightFields().get(highlightFieldName);
-                        if (highlightField != null) {
-                            String highlight = highlightField.getFragments()[0].string();
-                            Method method = fieldNameWriteMethodMap.get(highlightFieldName);
-                            if (method != null) {
-                                method.invoke(vo, highlight);
-                            }
-                        }
+        List<T> ret = indexMetrics.record(IndexMetrics.TRANSFORM,
+                () -> parallelDecoder.decode(hits, hit -> decodeWithHighlight(hit, highlightFieldNames)));
+        ret.removeIf(Objects::isNull);
+        return ret;
+    }
+
+    public Stream<T> streamSearchResultDataWithHighlight(SearchHit[] hits, List<String> highlightFieldNames) {
+        return Arrays.stream(hits).map(hit -> decodeWithHighlight(hit, highlightFieldNames)).filter(Objects::nonNull);
+    }
+
+    private T decodeWithHighlight(SearchHit hit, List<String> highlightFieldNames) {
+        try {
+            T vo = decode(hit);
+
+            if (!CollectionUtils.isEmpty(highlightFieldNames)) {
+                for (String highlightFieldName : highlightFieldNames) {
+                    HighlightField highlightField = hit.getHighlightFields().get(highlightFieldName);
+                    if (highlightField != null) {
+                        String highlight = highlightField.getFragments()[0].string();
+                        voMetadata.writeString(vo, highlightFieldName, highlight);
                     }
                 }
-                ret.add(vo);
-            } catch (Exception e) {
-                logger.error(e.getMessage(), e);
             }
+            return vo;
+        } catch (Exception e) {
+            logger.error(e.getMessage(), e);
         }
-        return ret;
+        return null;
     }
 
     @Override
     public void initIndex(String indexSuffix) {
-        ExecutorService executorService = Executors.newFixedThreadPool(elasticsearchProperties.getConcurrencyLevel());
+        if (rolloverManager != null) {
+            initRolloverIndex();
+            return;
+        }
         String indexNameAlias = getIndexName();
         String indexRealName = indexNameAlias + indexSuffix;
         try {
-            IndexBuildUtil.reInitMapping(indexNameAlias, INDEX_TYPE, getClazz(), client, indexSuffix);
-            int pageSize = MAX_PAGE_SIZE;
-            CountDownLatch countDownLatch = new CountDownLatch(elasticsearchProperties.getConcurrencyLevel());
-            for (int threadIndex = 0; threadIndex < elasticsearchProperties.getConcurrencyLevel(); threadIndex++) {
-                int finalThreadIndex = threadIndex;
-                executorService.execute(() -> {
-                    try {
-                        for (int i = 0; ; i++) {
-                            long version = System.currentTimeMillis();
-                            int offset = finalThreadIndex * BATCH_SIZE + i * pageSize;
-                            List<T> listVOS = getListVOList(offset, pageSize);
-                            if (CollectionUtils.isEmpty(listVOS) || offset >= (finalThreadIndex + 1) * BATCH_SIZE) {
-                                break;
-                            }
-                            BulkRequest bulkRequest = new BulkRequest();
-                            Set<String> idSet = new HashSet<>();
-                            for (T listVO : listVOS) {
-                                IndexRequest indexRequest = new IndexRequest(indexRealName);
-                                String id = getSearchId(listVO);
-                                if (idSet.contains(id)) {
-                                    continue;
-                                }
-                                idSet.add(id);
-                                indexRequest.id(id)
-                                        .source(JSONObject.toJSONString(listVO, SerializerFeature.DisableCircularReferenceDetect), XContentType.JSON)
-                                        .versionType(VersionType.EXTERNAL).version(version);
-                                bulkRequest.add(indexRequest);
-                            }
+            IndexBuildUtil.reInitMapping(indexNameAlias, INDEX_TYPE, getClazz(), writeClient, indexSuffix, buildBulkLoadSettings());
+            RebuildCheckpoint checkpoint = newCheckpoint(indexRealName);
+            checkpoint.setServingSettings(applyBulkLoadSettings(indexRealName));
+            checkpointStore.save(checkpoint);
+            rebuild(indexSuffix, checkpoint, new RebuildJournal(indexRealName));
+        } catch (Exception e) {
+            logger.error(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 从检查点继续中断的全量重建, 没有对应的检查点或目标索引已不存在时重新全量重建
+     * 同一进程内中断后实时写入仍记录在日志中; 进程重启后中断期间的实时写入不在日志中, 需要业务方补写
+     */
+    @Override
+    public void resumeIndex(String indexSuffix) {
+        if (rolloverManager != null) {
+            logger.error("resume is not supported in rollover mode, index-{}", getIndexName());
+            return;
+        }
+        String indexNameAlias = getIndexName();
+        String indexRealName = indexNameAlias + indexSuffix;
+        try {
+            RebuildCheckpoint checkpoint = checkpointStore.load(indexNameAlias);
+            GetIndexRequest getIndexRequest = new GetIndexRequest();
+            getIndexRequest.indices(indexRealName);
+            if (checkpoint == null || !indexRealName.equals(checkpoint.getTargetIndex())
+                    || !writeClient.indices().exists(getIndexRequest, RequestOptions.DEFAULT)) {
+                logger.warn("no checkpoint of index-{}, rebuild from scratch", indexRealName);
+                initIndex(indexSuffix);
+                return;
+            }
+            RebuildJournal journal = rebuildJournal;
+            if (journal == null || !indexRealName.equals(journal.getTargetIndex())) {
+                logger.warn("writes to index-{} before resume were not journaled", indexNameAlias);
+                journal = new RebuildJournal(indexRealName);
+            }
+            journal.setMaxEntries(0);
+            logger.info("resume index-{} from checkpoint {}", indexRealName, checkpoint.getSlices());
+            rebuild(indexSuffix, checkpoint, journal);
+        } catch (Exception e) {
+            logger.error(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 按检查点导入数据, 所有切片完成且文档数核对一致后才回放日志并切换别名
+     * 未完成时保留检查点与写日志, 别名仍指向旧索引, 可调用{@link #resumeIndex(String)}继续;
+     * 保留的写日志超过rebuildJournalMaxEntries条时丢弃, 之后继续重建不再回放之前的实时写入
+     */
+    private void rebuild(String indexSuffix, RebuildCheckpoint checkpoint, RebuildJournal journal) throws Exception {
+        String indexNameAlias = getIndexName();
+        String indexRealName = checkpoint.getTargetIndex();
+        RebuildProgress progress = new RebuildProgress(checkpoint, checkpointStore, elasticsearchProperties.getCheckpointIntervalMillis());
+        rebuildJournal = journal;
+        boolean keepJournal = false;
+        try {
+            long baselineDocs = countDocs(indexRealName);
+            IndexPipeline<T> pipeline = new IndexPipeline<>(indexRealName, elasticsearchProperties.getConcurrencyLevel(),
+                    elasticsearchProperties.getSerializeConcurrency(), elasticsearchProperties.getBulkConcurrency(),
+                    elasticsearchProperties.getPipelineQueueCapacity());
+            long listVOCount = getListVOCount();
+            indexMetrics.startRebuild(listVOCount < 0 ? -1 : Math.max(0, listVOCount - progress.getDocs()));
+            pipeline.run(buildPageSources(progress), listVOS -> {
+                        List<IndexRequest> indexRequests = buildIndexRequests(indexRealName, listVOS);
+                        progress.onSerialized(listVOS, indexRequests);
+                        return indexRequests;
+                    }, () -> newBulkBuffer(elasticsearchProperties.getBulkFlushIntervalMillis()),
+                    bulkRequest -> progress.onBulk(bulkRequest, sendRebuildBulkRequest(bulkRequest)));
+            progress.finish();
+            if (!progress.isComplete()) {
+                keepJournal = true;
+                logger.error("rebuild of index-{} incomplete, alias not switched, incomplete slices: {}", indexRealName,
+                        progress.getIncompleteSlices());
+                return;
+            }
+            if (!checkDocCount(indexRealName, baselineDocs + progress.getCreatedDocs())) {
+                keepJournal = true;
+                return;
+            }
+            catchUpRebuild(journal);
+            applyServingSettings(indexRealName, checkpoint.getServingSettings());
+            updateInitIndexSetting(indexNameAlias, indexSuffix);
+            checkpointStore.delete(indexNameAlias);
+        } finally {
+            if (keepJournal) {
+                journal.setMaxEntries(elasticsearchProperties.getRebuildJournalMaxEntries());
+                if (journal.isOverflowed()) {
+                    discardJournal(journal);
+                }
+            } else {
+                rebuildJournal = null;
+            }
+            indexMetrics.finishRebuild();
+        }
+    }
+
+    private RebuildCheckpoint newCheckpoint(String indexRealName) {
+        KeyRange keyRange = getListVOKeyRange();
+        if (keyRange == null) {
+            RebuildCheckpoint checkpoint = new RebuildCheckpoint(getIndexName(), indexRealName, RebuildCheckpoint.OFFSET_MODE);
+            checkpoint.getSlices().add(new SliceCheckpoint(RebuildCheckpoint.OFFSET_MODE, 0, 0));
+            return checkpoint;
+        }
+        RebuildCheckpoint checkpoint = new RebuildCheckpoint(getIndexName(), indexRealName, RebuildCheckpoint.KEY_MODE);
+        List<KeyRange> ranges = keyRange.split(elasticsearchProperties.getConcurrencyLevel() * KEY_RANGE_SPLIT_FACTOR);
+        for (int i = 0; i < ranges.size(); i++) {
+            checkpoint.getSlices().add(new SliceCheckpoint("slice-" + i, ranges.get(i).getMin() - 1, ranges.get(i).getMax()));
+        }
+        logger.info("index: {}, key range {} split into {} slices", getIndexName(), keyRange, ranges.size());
+        return checkpoint;
+    }
+
+    /**
+     * refresh后按实际文档数核对, 预期文档数为本次运行开始时索引中已有的文档数加本次新建的文档数,
+     * 差异超过rebuildDocCountTolerance比例时不切换别名
+     */
+    private boolean checkDocCount(String indexRealName, long expectedDocs) throws IOException {
+        long actualDocs = countDocs(indexRealName);
+        if (Math.abs(actualDocs - expectedDocs) > expectedDocs * elasticsearchProperties.getRebuildDocCountTolerance()) {
+            logger.error("doc count of index-{} mismatch, expected: {}, actual: {}, alias not switched", indexRealName, expectedDocs, actualDocs);
+            return false;
+        }
+        logger.info("doc count of index-{} checked, docs: {}", indexRealName, actualDocs);
+        return true;
+    }
+
+    private long countDocs(String indexRealName) throws IOException {
+        writeClient.indices().refresh(new RefreshRequest(indexRealName), RequestOptions.DEFAULT);
+        SearchSourceBuilder source = new SearchSourceBuilder().size(0).trackTotalHits(true);
+        return writeClient.search(new SearchRequest(indexRealName).source(source), RequestOptions.DEFAULT)
+                .getHits().getTotalHits().value;
+    }
+
+    private List<PageSource<T>> buildPageSources(RebuildProgress progress) {
+        KeyRangeSupport<T> keyRangeSupport = getKeyRangeSupport();
+        if (RebuildCheckpoint.KEY_MODE.equals(progress.getCheckpoint().getMode()) && keyRangeSupport == null) {
+            throw new IllegalStateException("checkpoint of index-" + progress.getCheckpoint().getTargetIndex()
+                    + " is in key mode but " + getClass().getName() + " does not implement KeyRangeSupport");
+        }
+        List<PageSource<T>> pageSources = new ArrayList<>();
+        for (SliceCheckpoint slice : progress.getCheckpoint().getSlices()) {
+            String sliceId = slice.getId();
+            if (slice.isDone()) {
+                continue;
+            }
+            if (RebuildCheckpoint.OFFSET_MODE.equals(progress.getCheckpoint().getMode())) {
+                PageSource<T> pageSource = progress.track(sliceId, new OffsetPageSource<>((offset, pageSize) ->
+                        progress.readOffsetPage(sliceId, offset / pageSize, () -> indexMetrics.record(IndexMetrics.FETCH,
+                                () -> getListVOList(offset, pageSize))), MAX_PAGE_SIZE, (int) slice.getCursor()));
+                pageSources.addAll(Collections.nCopies(elasticsearchProperties.getConcurrencyLevel(), pageSource));
+                continue;
+            }
+            if (slice.getCursor() >= slice.getMax()) {
+                progress.markExhausted(sliceId);
+                continue;
+            }
+            KeyRange range = new KeyRange(slice.getCursor() + 1, slice.getMax());
+            pageSources.add(progress.track(sliceId, new KeyRangePageSource<>((lastKey, maxKey, pageSize) ->
+                    progress.readKeyPage(sliceId, () -> indexMetrics.record(IndexMetrics.FETCH,
+                            () -> keyRangeSupport.getListVOListByKey(lastKey, maxKey, pageSize)), this::getListVOKey),
+                    this::getListVOKey, range, MAX_PAGE_SIZE)));
+        }
+        return pageSources;
+    }
+
+    /**
+     * 滚动模式下初始化写别名并将数据源全部写入当前代, 之后由滚动条件切换到新的代
+     */
+    private void initRolloverIndex() {
+        try {
+            rolloverManager.bootstrap();
+            String writeAlias = rolloverManager.getWriteAlias();
+            IndexPipeline<T> pipeline = new IndexPipeline<>(writeAlias, elasticsearchProperties.getConcurrencyLevel(),
+                    elasticsearchProperties.getSerializeConcurrency(), elasticsearchProperties.getBulkConcurrency(),
+                    elasticsearchProperties.getPipelineQueueCapacity());
+            indexMetrics.startRebuild(getListVOCount());
+            pipeline.run(buildPageSources(), listVOS -> buildIndexRequests(writeAlias, listVOS),
+                    () -> newBulkBuffer(elasticsearchProperties.getBulkFlushIntervalMillis()), this::sendRebuildBulkRequest);
+        } catch (Exception e) {
+            logger.error(e.getMessage(), e);
+        } finally {
+            indexMetrics.finishRebuild();
+        }
+    }
+
+    private Settings buildRolloverSettings(RolloverPolicy rolloverPolicy) {
+        Settings.Builder builder = Settings.builder()
+                .put(INDEX_REFRESH_INTERVAL, elasticsearchProperties.getRefreshInterval());
+        if (elasticsearchProperties.getServingReplicas() >= 0) {
+            builder.put(INDEX_NUMBER_OF_REPLICAS, elasticsearchProperties.getServingReplicas());
+        }
+        if (rolloverPolicy.getShards() > 0) {
+            builder.put(INDEX_NUMBER_OF_SHARDS, rolloverPolicy.getShards());
+        }
+        if (voMetadata.hasRoutingField() && elasticsearchProperties.getRoutingPartitionSize() > 0) {
+            builder.put(INDEX_ROUTING_PARTITION_SIZE, elasticsearchProperties.getRoutingPartitionSize());
+        }
+        return builder.build();
+    }
+
+    /**
+     * 实时写入的目标, 滚动模式下为写别名
+     */
+    private String getWriteIndexName() {
+        return rolloverManager == null ? getIndexName() : rolloverManager.getWriteAlias();
+    }
+
+    /**
+     * 滚动模式下文档可能位于任意一代, 通过读别名按id删除, 返回是否删除成功
+     */
+    private boolean deleteFromGenerations(List<String> idList) {
+        if (contentFingerprints != null) {
+            idList.forEach(contentFingerprints::remove);
+        }
+        Timer.Sample sample = indexMetrics.start();
+        try {
+            DeleteByQueryRequest deleteByQueryRequest = new DeleteByQueryRequest(getIndexName());
+            deleteByQueryRequest.setQuery(QueryBuilders.idsQuery().addIds(idList.toArray(new String[0])));
+            deleteByQueryRequest.setConflicts("proceed");
+            deleteByQueryRequest.setRefresh(refreshPolicy != WriteRequest.RefreshPolicy.NONE);
+            BulkByScrollResponse bulkByScrollResponse = writeClient.deleteByQuery(deleteByQueryRequest, RequestOptions.DEFAULT);
+            logger.info("delete index: {}, ids: {}, deleted: {}", getIndexName(), idList.size(), bulkByScrollResponse.getDeleted());
+            if (!bulkByScrollResponse.getBulkFailures().isEmpty() || !bulkByScrollResponse.getSearchFailures().isEmpty()) {
+                logger.error("delete index: {} failed, bulk failures: {}, search failures: {}", getIndexName(),
+                        bulkByScrollResponse.getBulkFailures(), bulkByScrollResponse.getSearchFailures());
+                return false;
+            }
+            return true;
+        } catch (Exception e) {
+            logger.error(e.getMessage(), e);
+            return false;
+        } finally {
+            indexMetrics.stop(sample, IndexMetrics.DELETE);
+            invalidateQueryCache();
+            invalidateDocuments(idList);
+        }
+    }
+
+    /**
+     * 按VO注解更新索引映射, 不再重新读取数据源
+     * 兼容变更(新增字段、新增multi-field、copy_to)原地更新映射, 并通过_update_by_query回填受影响的已有文档
+     * 不兼容变更通过{@link #reindexFrom(String, String)}复制到indexSuffix对应的新索引后切换别名, 索引不存在时执行{@link #initIndex(String)}
+     */
+    @Override
+    public void updateMapping(String indexSuffix) {
+        String indexNameAlias = getIndexName();
+        try {
+            Map<String, Map<String, Object>> liveMappings = getLiveMappingProperties(indexNameAlias);
+            if (liveMappings.isEmpty()) {
+                logger.info("index-{} not exists, init index", indexNameAlias);
+                initIndex(indexSuffix);
+                return;
+            }
+            Map<String, Object> expected = IndexBuildUtil.buildMappingProperties(getClazz());
+            Set<String> backfillFields = new LinkedHashSet<>();
+            boolean changed = false;
+            for (Map.Entry<String, Map<String, Object>> entry : liveMappings.entrySet()) {
+                MappingDiff mappingDiff = MappingDiff.compare(expected, entry.getValue());
+                logger.info("mapping diff of index-{}: {}", entry.getKey(), mappingDiff);
+                if (!mappingDiff.isCompatible() && rolloverManager != null) {
+                    logger.warn("mapping of index-{} is incompatible, roll over to a new generation", indexNameAlias);
+                    rolloverManager.putTemplate();
+                    rolloverManager.forceRollover();
+                    return;
+                }
+                if (!mappingDiff.isCompatible()) {
+                    logger.warn("mapping of index-{} is incompatible, reindex to {}", indexNameAlias, indexNameAlias + indexSuffix);
+                    reindexFrom(indexNameAlias, indexSuffix);
+                    return;
+                }
+                changed |= !mappingDiff.isEmpty();
+                backfillFields.addAll(mappingDiff.getBackfillFields());
+            }
+            if (!changed) {
+                logger.info("mapping of index-{} is up to date", indexNameAlias);
+                return;
+            }
+            IndexBuildUtil.putMapping(indexNameAlias, INDEX_TYPE, getClazz(), writeClient);
+            if (rolloverManager != null) {
+                rolloverManager.putTemplate();
+            }
+            logger.info("update mapping of index-{}", indexNameAlias);
+            if (elasticsearchProperties.isMappingUpdateByQuery() && !backfillFields.isEmpty()) {
+                backfillByQuery(indexNameAlias, backfillFields);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.error("update mapping interrupted, index-{}", indexNameAlias);
+        } catch (Exception e) {
+            logger.error(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 别名下各物理索引的映射properties, 索引不存在时返回空
+     */
+    @SuppressWarnings("unchecked")
+    private Map<String, Map<String, Object>> getLiveMappingProperties(String indexName) throws IOException {
+        GetIndexRequest getIndexRequest = new GetIndexRequest();
+        getIndexRequest.indices(indexName);
+        Map<String, Map<String, Object>> liveMappings = new LinkedHashMap<>();
+        if (!writeClient.indices().exists(getIndexRequest, RequestOptions.DEFAULT)) {
+            return liveMappings;
+        }
+        GetMappingsResponse getMappingsResponse = writeClient.indices().getMapping(new GetMappingsRequest().indices(indexName), RequestOptions.DEFAULT);
+        for (ObjectObjectCursor<String, ImmutableOpenMap<String, MappingMetaData>> indexCursor : getMappingsResponse.mappings()) {
+            Map<String, Object> properties = new HashMap<>();
+            for (ObjectObjectCursor<String, MappingMetaData> typeCursor : indexCursor.value) {
+                Object typeProperties = typeCursor.value.sourceAsMap().get(IndexBuildUtil.PROPERTIES_STRING);
+                if (typeProperties instanceof Map) {
+                    properties.putAll((Map<String, Object>) typeProperties);
+                }
+            }
+            liveMappings.put(indexCursor.key, properties);
+        }
+        return liveMappings;
+    }
+
+    /**
+     * 只重新索引包含受影响字段的文档, 使新的multi-field与copy_to生效
+     */
+    private void backfillByQuery(String indexName, Set<String> fields) throws IOException, InterruptedException {
+        BoolQueryBuilder queryBuilder = QueryBuilders.boolQuery().minimumShouldMatch(1);
+        fields.forEach(field -> queryBuilder.should(QueryBuilders.existsQuery(field)));
+        XContentBuilder body = XContentFactory.jsonBuilder().startObject().field("query", queryBuilder).endObject();
+        RestClient restClient = writeClient.getLowLevelClient();
+        String taskId = TaskUtil.submit(restClient, "POST", "/" + indexName + "/_update_by_query",
+                Collections.singletonMap("conflicts", "proceed"), Strings.toString(body));
+        TaskUtil.waitForCompletion(restClient, taskId, elasticsearchProperties.getTaskPollIntervalMillis());
+        logger.info("backfill index-{} fields {}", indexName, fields);
+    }
 
-                            BulkResponse bulkResponse = null;
-                            bulkResponse = client.bulk(bulkRequest, RequestOptions.DEFAULT);
-                            if (bulkResponse != null && bulkResponse.hasFailures()) {
-                                Stream.of(bulkResponse.getItems()).forEach(x -> {
-                                    if (x.isFailed()) {
-                                        logger.error("[ES BULK ERROR] index: {},errorMsg:{}", getIndexName(), x.getFailureMessage());
-                                    }
-                                });
+    /**
+     * 以服务端_reindex代替数据源全量读取重建索引, 适用于数据已完整存在于ES、只有映射或分词器变化的场景
+     * 按VO注解创建新索引后由集群执行分片(slices)并限速(requests_per_second)的_reindex, 保留外部版本号,
+     * 期间的实时写入与{@link #initIndex(String)}一样回放后再切换别名
+     */
+    @Override
+    public void reindexFrom(String existingAlias, String indexSuffix) {
+        if (rolloverManager != null) {
+            logger.error("reindex is not supported in rollover mode, index-{}", getIndexName());
+            return;
+        }
+        String indexNameAlias = getIndexName();
+        String indexRealName = indexNameAlias + indexSuffix;
+        try {
+            IndexBuildUtil.reInitMapping(indexNameAlias, INDEX_TYPE, getClazz(), writeClient, indexSuffix, buildBulkLoadSettings());
+            Map<String, String> servingSettings = applyBulkLoadSettings(indexRealName);
+            RebuildJournal journal = new RebuildJournal(indexRealName);
+            rebuildJournal = journal;
+            XContentBuilder body = XContentFactory.jsonBuilder().startObject()
+                    .startObject("source").field("index", existingAlias).field("size", elasticsearchProperties.getReindexBatchSize()).endObject()
+                    .startObject("dest").field("index", indexRealName).field("version_type", "external").endObject()
+                    .endObject();
+            Map<String, String> params = new HashMap<>();
+            params.put("slices", elasticsearchProperties.getReindexSlices());
+            if (elasticsearchProperties.getReindexRequestsPerSecond() > 0) {
+                params.put("requests_per_second", String.valueOf(elasticsearchProperties.getReindexRequestsPerSecond()));
+            }
+            RestClient restClient = writeClient.getLowLevelClient();
+            String taskId = TaskUtil.submit(restClient, "POST", "/_reindex", params, Strings.toString(body));
+            logger.info("reindex from {} to {}, task-{}", existingAlias, indexRealName, taskId);
+            TaskUtil.waitForCompletion(restClient, taskId, elasticsearchProperties.getTaskPollIntervalMillis());
+            catchUpRebuild(journal);
+            applyServingSettings(indexRealName, servingSettings);
+            updateInitIndexSetting(indexNameAlias, indexSuffix);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.error("reindex interrupted, index-{}", indexRealName);
+        } catch (Exception e) {
+            logger.error(e.getMessage(), e);
+        } finally {
+            rebuildJournal = null;
+        }
+    }
+
+    /**
+     * 增量同步: 按数据源逐页读取并编码, 只把_source内容指纹变化的文档写入当前索引, 再删除索引中数据源已不存在的文档
+     * 指纹未加载时先从索引读取全部_source加载; 未开启deltaSyncEnabled时指纹只在本次同步中使用
+     * 删除以同步开始时间为外部版本号, 同步期间有更新写入的文档版本冲突而保留
+     */
+    @Override
+    public void deltaIndex() {
+        if (rolloverManager != null) {
+            logger.error("delta sync is not supported in rollover mode, index-{}", getIndexName());
+            return;
+        }
+        String indexNameAlias = getIndexName();
+        ContentFingerprints fingerprints = contentFingerprints != null ? contentFingerprints : new ContentFingerprints();
+        long startMillis = System.currentTimeMillis();
+        try {
+            if (!fingerprints.isLoaded()) {
+                loadFingerprints(fingerprints);
+            }
+            Set<String> seenIds = ConcurrentHashMap.newKeySet();
+            AtomicLong changed = new AtomicLong();
+            IndexPipeline<T> pipeline = new IndexPipeline<>(indexNameAlias, elasticsearchProperties.getConcurrencyLevel(),
+                    elasticsearchProperties.getSerializeConcurrency(), elasticsearchProperties.getBulkConcurrency(),
+                    elasticsearchProperties.getPipelineQueueCapacity());
+            pipeline.run(buildPageSources(), listVOS -> {
+                        List<IndexRequest> indexRequests = new ArrayList<>();
+                        for (IndexRequest indexRequest : buildIndexRequests(indexNameAlias, listVOS)) {
+                            seenIds.add(indexRequest.id());
+                            if (!fingerprints.isUnchanged(indexRequest.id(), indexRequest.source())) {
+                                journalDocument(indexRequest);
+                                indexRequests.add(indexRequest);
                             }
                         }
-                    } catch (Exception e) {
-                        logger.error(e.getMessage(), e);
-                    } finally {
-                        countDownLatch.countDown();
-                        logger.info("[ES BULK COUNT DOWN]-{}", countDownLatch.getCount());
+                        changed.addAndGet(indexRequests.size());
+                        return indexRequests;
+                    }, () -> newBulkBuffer(elasticsearchProperties.getBulkFlushIntervalMillis()),
+                    bulkRequest -> sendDeltaBulkRequest(fingerprints, bulkRequest));
+            if (pipeline.getFailedPages() > 0) {
+                logger.error("delta sync of index-{} has {} failed pages, skip deleting missing documents", indexNameAlias, pipeline.getFailedPages());
+                return;
+            }
+            long deleted = deleteMissingDocuments(fingerprints, seenIds, startMillis);
+            logger.info("[ES DELTA SYNC] index: {}, scanned: {}, changed: {}, deleted: {}, use-{}", indexNameAlias,
+                    pipeline.getFetchedDocs(), changed.get(), deleted, System.currentTimeMillis() - startMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.error("delta sync interrupted, index-{}", indexNameAlias);
+        } catch (Exception e) {
+            logger.error(e.getMessage(), e);
+        }
+    }
+
+    private void loadFingerprints(ContentFingerprints fingerprints) {
+        TimeValue keepAlive = TimeValue.parseTimeValue(elasticsearchProperties.getScrollKeepAlive(), "es.scrollKeepAlive");
+        SearchSourceBuilder source = new SearchSourceBuilder().size(MAX_PAGE_SIZE).sort(SortBuilders.fieldSort(DOC_FIELD_NAME));
+        try (ScrollPageIterator iterator = new ScrollPageIterator(writeClient, source, keepAlive, null, getIndexName())) {
+            fingerprints.load(iterator);
+        }
+        logger.info("load content fingerprints of index-{}, docs: {}", getIndexName(), fingerprints.size());
+    }
+
+    /**
+     * 按id遍历当前索引, 删除本次同步未从数据源读到的文档
+     */
+    private long deleteMissingDocuments(ContentFingerprints fingerprints, Set<String> seenIds, long version) {
+        TimeValue keepAlive = TimeValue.parseTimeValue(elasticsearchProperties.getScrollKeepAlive(), "es.scrollKeepAlive");
+        SearchSourceBuilder source = new SearchSourceBuilder().fetchSource(false).size(MAX_PAGE_SIZE)
+                .sort(SortBuilders.fieldSort(DOC_FIELD_NAME));
+        List<String> missingIds = new ArrayList<>();
+        try (ScrollPageIterator iterator = new ScrollPageIterator(writeClient, source, keepAlive, null, getIndexName())) {
+            while (iterator.hasNext()) {
+                for (SearchHit hit : iterator.next()) {
+                    if (!seenIds.contains(hit.getId())) {
+                        missingIds.add(hit.getId());
                     }
-                });
+                }
             }
-            countDownLatch.await();
-            updateInitIndexSetting(indexNameAlias, indexSuffix);
+        }
+        BulkBuffer bulkBuffer = newBulkBuffer(0);
+        List<BulkRequest> bulkRequests = new ArrayList<>();
+        for (String id : missingIds) {
+            journal(id, WriteOperation.DELETE);
+            addBulkRequest(bulkRequests, bulkBuffer.add(buildDeleteRequest(getIndexName(), id)
+                    .versionType(VersionType.EXTERNAL).version(version)));
+        }
+        addBulkRequest(bulkRequests, bulkBuffer.flush());
+        for (BulkRequest bulkRequest : bulkRequests) {
+            sendDeltaBulkRequest(fingerprints, bulkRequest);
+        }
+        return missingIds.size();
+    }
+
+    private void sendDeltaBulkRequest(ContentFingerprints fingerprints, BulkRequest bulkRequest) {
+        BulkResponse bulkResponse = sendBulkRequest(bulkRequest);
+        fingerprints.record(bulkRequest, bulkResponse);
+        invalidateQueryCache();
+        invalidateDocuments(bulkRequest.requests().stream().map(DocWriteRequest::id).collect(Collectors.toList()));
+    }
+
+    /**
+     * 创建新索引的设置: 分片数、路由分区及导入期间关闭刷新; 副本数与translog不在创建时指定, 以便取得模板及集群默认值
+     */
+    private Settings buildBulkLoadSettings() {
+        Settings.Builder builder = Settings.builder();
+        if (elasticsearchProperties.getBulkLoadShards() > 0) {
+            builder.put(INDEX_NUMBER_OF_SHARDS, elasticsearchProperties.getBulkLoadShards());
+        }
+        if (voMetadata.hasRoutingField() && elasticsearchProperties.getRoutingPartitionSize() > 0) {
+            builder.put(INDEX_ROUTING_PARTITION_SIZE, elasticsearchProperties.getRoutingPartitionSize());
+        }
+        if (elasticsearchProperties.isBulkLoadProfileEnabled()) {
+            builder.put(INDEX_REFRESH_INTERVAL, elasticsearchProperties.getBulkLoadRefreshInterval());
+        }
+        return builder.build();
+    }
+
+    /**
+     * 记录新索引按模板及集群默认得到的副本数与translog设置, 开启导入配置时再改为导入期间的无副本、异步translog
+     */
+    private Map<String, String> applyBulkLoadSettings(String indexRealName) throws IOException {
+        GetSettingsRequest getSettingsRequest = new GetSettingsRequest().indices(indexRealName).includeDefaults(true)
+                .names(INDEX_NUMBER_OF_REPLICAS, INDEX_TRANSLOG_DURABILITY);
+        GetSettingsResponse getSettingsResponse = writeClient.indices().getSettings(getSettingsRequest, RequestOptions.DEFAULT);
+        Map<String, String> servingSettings = new HashMap<>();
+        for (String name : Arrays.asList(INDEX_NUMBER_OF_REPLICAS, INDEX_TRANSLOG_DURABILITY)) {
+            String value = getSettingsResponse.getSetting(indexRealName, name);
+            if (value != null) {
+                servingSettings.put(name, value);
+            }
+        }
+        if (elasticsearchProperties.isBulkLoadProfileEnabled()) {
+            UpdateSettingsRequest updateSettingsRequest = new UpdateSettingsRequest(indexRealName);
+            updateSettingsRequest.settings(Settings.builder()
+                    .put(INDEX_NUMBER_OF_REPLICAS, elasticsearchProperties.getBulkLoadReplicas())
+                    .put(INDEX_TRANSLOG_DURABILITY, elasticsearchProperties.getBulkLoadTranslogDurability()));
+            AcknowledgedResponse acknowledgedResponse = writeClient.indices().putSettings(updateSettingsRequest, RequestOptions.DEFAULT);
+            if (!acknowledgedResponse.isAcknowledged()) {
+                throw new IllegalStateException("apply bulk load setting not acknowledged, index-" + indexRealName);
+            }
+            logger.info("apply bulk load setting-{}, serving setting {}", indexRealName, servingSettings);
+        }
+        return servingSettings;
+    }
+
+    /**
+     * 别名切换前恢复对外服务的索引设置, 可选force merge及等待副本分配完成
+     * 副本数与translog优先取servingReplicas/servingTranslogDurability配置, 未配置时恢复导入前记录的原始设置
+     */
+    private void applyServingSettings(String indexRealName, Map<String, String> servingSettings) throws IOException {
+        if (!elasticsearchProperties.isBulkLoadProfileEnabled()) {
+            return;
+        }
+        if (elasticsearchProperties.getForceMergeMaxSegments() > 0) {
+            ForceMergeRequest forceMergeRequest = new ForceMergeRequest(indexRealName)
+                    .maxNumSegments(elasticsearchProperties.getForceMergeMaxSegments());
+            writeClient.indices().forcemerge(forceMergeRequest, RequestOptions.DEFAULT);
+            logger.info("force merge index-{} to {} segments", indexRealName, elasticsearchProperties.getForceMergeMaxSegments());
+        }
+        UpdateSettingsRequest updateSettingsRequest = new UpdateSettingsRequest(indexRealName);
+        Settings.Builder builder = Settings.builder().put(INDEX_REFRESH_INTERVAL, elasticsearchProperties.getRefreshInterval());
+        int servingReplicas = elasticsearchProperties.getServingReplicas();
+        putServingSetting(builder, INDEX_NUMBER_OF_REPLICAS, servingReplicas >= 0 ? String.valueOf(servingReplicas) : null, servingSettings);
+        String servingTranslogDurability = elasticsearchProperties.getServingTranslogDurability();
+        putServingSetting(builder, INDEX_TRANSLOG_DURABILITY,
+                StringUtils.hasText(servingTranslogDurability) ? servingTranslogDurability : null, servingSettings);
+        updateSettingsRequest.settings(builder);
+        AcknowledgedResponse acknowledgedResponse = writeClient.indices().putSettings(updateSettingsRequest, RequestOptions.DEFAULT);
+        if (!acknowledgedResponse.isAcknowledged()) {
+            logger.error("update index setting error -{}", indexRealName);
+            throw new RuntimeException();
+        }
+        if (elasticsearchProperties.isWaitForGreen()) {
+            ClusterHealthRequest clusterHealthRequest = new ClusterHealthRequest(indexRealName).waitForGreenStatus()
+                    .timeout(TimeValue.parseTimeValue(elasticsearchProperties.getWaitForGreenTimeout(), "es.waitForGreenTimeout"));
+            ClusterHealthResponse clusterHealthResponse = writeClient.cluster().health(clusterHealthRequest, RequestOptions.DEFAULT);
+            if (clusterHealthResponse.isTimedOut()) {
+                logger.warn("wait for green timed out, index-{}, status-{}", indexRealName, clusterHealthResponse.getStatus());
+            }
+        }
+        logger.info("apply serving setting-{}", indexRealName);
+    }
+
+    /**
+     * 配置值优先, 其次为导入前记录的原始值, 都没有时重置为集群默认值
+     */
+    private void putServingSetting(Settings.Builder builder, String name, String configured, Map<String, String> servingSettings) {
+        String original = servingSettings == null ? null : servingSettings.get(name);
+        if (configured != null) {
+            builder.put(name, configured);
+        } else if (original != null) {
+            builder.put(name, original);
+        } else {
+            builder.putNull(name);
+        }
+    }
+
+    /**
+     * 回放重建期间的实时写操作, 再切换为双写并回放切换前遗留的操作, 之后的实时写入由双写覆盖直到别名切换
+     */
+    private void catchUpRebuild(RebuildJournal journal) {
+        replayJournal(journal, journal.drain(), journal.drainDocuments());
+        journal.startDualWrite();
+        replayJournal(journal, journal.drain(), journal.drainDocuments());
+    }
+
+    private void journal(String id, WriteOperation operation) {
+        RebuildJournal journal = rebuildJournal;
+        if (journal == null) {
+            return;
+        }
+        journal.record(id, operation);
+        if (journal.isOverflowed()) {
+            discardJournal(journal);
+            return;
+        }
+        if (journal.isDualWrite()) {
+            replayJournal(journal, Collections.singletonMap(id, operation), Collections.emptyList());
+        }
+    }
+
+    /**
+     * 未完成重建保留的写日志超过上限时丢弃, 避免实时写入持续堆积
+     */
+    private void discardJournal(RebuildJournal journal) {
+        if (rebuildJournal == journal) {
+            rebuildJournal = null;
+            logger.error("rebuild journal of index-{} exceeds {} entries and is discarded, writes are not replayed on resume",
+                    journal.getTargetIndex(), elasticsearchProperties.getRebuildJournalMaxEntries());
+        }
+    }
+
+    /**
+     * 记录已编码的写请求, 用于只知道文档id、无法按数据源id重新读取的写入, 如增量同步
+     */
+    private void journalDocument(IndexRequest indexRequest) {
+        RebuildJournal journal = rebuildJournal;
+        if (journal == null) {
+            return;
+        }
+        journal.recordDocument(indexRequest);
+        if (journal.isOverflowed()) {
+            discardJournal(journal);
+            return;
+        }
+        if (journal.isDualWrite()) {
+            replayJournal(journal, Collections.emptyMap(), Collections.singletonList(indexRequest));
+        }
+    }
+
+    /**
+     * 按当前数据源状态重写新索引中的文档, 版本号取读取数据源之前的时间
+     * 已被更新写入覆盖的文档返回版本冲突, 作为过期数据丢弃; 已编码的写请求保留原版本号写入新索引
+     */
+    private void replayJournal(RebuildJournal journal, Map<String, WriteOperation> entries, List<IndexRequest> documents) {
+        if (entries.isEmpty() && documents.isEmpty()) {
+            return;
+        }
+        long version = System.currentTimeMillis();
+        BulkBuffer bulkBuffer = newBulkBuffer(0);
+        List<BulkRequest> bulkRequests = new ArrayList<>();
+        for (Map.Entry<String, WriteOperation> entry : entries.entrySet()) {
+            try {
+                if (entry.getValue() == WriteOperation.DELETE) {
+                    addBulkRequest(bulkRequests, bulkBuffer.add(buildDeleteRequest(journal.getTargetIndex(), entry.getKey())
+                            .versionType(VersionType.EXTERNAL).version(version)));
+                    continue;
+                }
+                List<T> voList = getVOListById(entry.getKey());
+                if (CollectionUtils.isEmpty(voList)) {
+                    continue;
+                }
+                for (T listVO : voList) {
+                    addBulkRequest(bulkRequests, bulkBuffer.add(buildIndexRequest(journal.getTargetIndex(), getSearchId(listVO), listVO, version)));
+                }
+            } catch (Exception e) {
+                logger.error("[ES REBUILD REPLAY ERROR] index: {}, id: {}, errorMsg: {}", journal.getTargetIndex(), entry.getKey(), e.getMessage(), e);
+            }
+        }
+        for (IndexRequest document : documents) {
+            addBulkRequest(bulkRequests, bulkBuffer.add(new IndexRequest(journal.getTargetIndex()).id(document.id())
+                    .routing(document.routing()).source(document.source(), document.getContentType())
+                    .versionType(VersionType.EXTERNAL).version(document.version())));
+        }
+        addBulkRequest(bulkRequests, bulkBuffer.flush());
+        int stale = 0;
+        int failed = 0;
+        for (BulkRequest bulkRequest : bulkRequests) {
+            BulkResponse bulkResponse = sendBulkRequest(bulkRequest);
+            if (bulkResponse == null) {
+                failed += bulkRequest.numberOfActions();
+                continue;
+            }
+            for (BulkItemResponse item : bulkResponse.getItems()) {
+                if (item.isFailed()) {
+                    if (item.getFailure().getStatus() == RestStatus.CONFLICT) {
+                        stale++;
+                    } else {
+                        failed++;
+                    }
+                }
+            }
+        }
+        logger.info("[ES REBUILD REPLAY] index: {}, replayed: {}, stale: {}, failed: {}", journal.getTargetIndex(),
+                entries.size() + documents.size(), stale, failed);
+    }
+
+    private void addBulkRequest(List<BulkRequest> bulkRequests, BulkRequest bulkRequest) {
+        if (bulkRequest != null) {
+            bulkRequests.add(bulkRequest);
+        }
+    }
+
+    private List<PageSource<T>> buildPageSources() {
+        int concurrencyLevel = elasticsearchProperties.getConcurrencyLevel();
+        KeyRange keyRange = getListVOKeyRange();
+        if (keyRange == null) {
+            PageSource<T> pageSource = new OffsetPageSource<>((offset, pageSize) -> indexMetrics.record(IndexMetrics.FETCH,
+                    () -> getListVOList(offset, pageSize)), MAX_PAGE_SIZE);
+            return Collections.nCopies(concurrencyLevel, pageSource);
+        }
+        KeyRangeSupport<T> keyRangeSupport = getKeyRangeSupport();
+        List<PageSource<T>> pageSources = new ArrayList<>();
+        for (KeyRange range : keyRange.split(concurrencyLevel * KEY_RANGE_SPLIT_FACTOR)) {
+            pageSources.add(new KeyRangePageSource<>((lastKey, maxKey, pageSize) -> indexMetrics.record(IndexMetrics.FETCH,
+                    () -> keyRangeSupport.getListVOListByKey(lastKey, maxKey, pageSize)), this::getListVOKey, range, MAX_PAGE_SIZE));
+        }
+        logger.info("index: {}, key range {} split into {} sources", getIndexName(), keyRange, pageSources.size());
+        return pageSources;
+    }
+
+    @SuppressWarnings("unchecked")
+    private KeyRangeSupport<T> getKeyRangeSupport() {
+        return this instanceof KeyRangeSupport ? (KeyRangeSupport<T>) this : null;
+    }
+
+    /**
+     * 服务实现{@link KeyRangeSupport}且返回了主键范围时按主键游标读取, 否则返回null使用offset分页读取
+     */
+    private KeyRange getListVOKeyRange() {
+        KeyRangeSupport<T> keyRangeSupport = getKeyRangeSupport();
+        return keyRangeSupport == null ? null : keyRangeSupport.getListVOKeyRange();
+    }
+
+    private List<IndexRequest> buildIndexRequests(String indexRealName, List<T> listVOS) {
+        return indexMetrics.record(IndexMetrics.SERIALIZE, () -> doBuildIndexRequests(indexRealName, listVOS));
+    }
+
+    private List<IndexRequest> doBuildIndexRequests(String indexRealName, List<T> listVOS) {
+        long version = System.currentTimeMillis();
+        List<IndexRequest> indexRequests = new ArrayList<>(listVOS.size());
+        Set<String> idSet = new HashSet<>();
+        for (T listVO : listVOS) {
+            String id = getSearchId(listVO);
+            if (idSet.contains(id)) {
+                continue;
+            }
+            idSet.add(id);
+            indexRequests.add(buildIndexRequest(indexRealName, id, listVO, version));
+        }
+        return indexRequests;
+    }
+
+    private BulkBuffer newBulkBuffer(long flushIntervalMillis) {
+        return new BulkBuffer(bulkSender.getBulkSizer(), elasticsearchProperties.getBulkMaxBytes(), flushIntervalMillis);
+    }
+
+    private BulkResponse sendRebuildBulkRequest(BulkRequest bulkRequest) {
+        BulkResponse bulkResponse = sendBulkRequest(bulkRequest);
+        indexMetrics.recordRebuildDocs(bulkResponse);
+        return bulkResponse;
+    }
+
+    private BulkResponse sendBulkRequest(BulkRequest bulkRequest) {
+        Timer.Sample sample = indexMetrics.start();
+        try {
+            BulkResponse bulkResponse = bulkSender.send(bulkRequest);
+            indexMetrics.recordBulkResponse(bulkResponse);
+            return bulkResponse;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.error("[ES BULK INTERRUPTED] index: {}", getIndexName());
         } catch (Exception e) {
             logger.error(e.getMessage(), e);
         } finally {
-            executorService.shutdown();
+            indexMetrics.stop(sample, IndexMetrics.BULK);
         }
+        return null;
+    }
+
+    private IndexRequest buildIndexRequest(String indexName, String id, T listVO, long version) {
+        SourceCodec codec = getSourceCodec();
+        return new IndexRequest(indexName).id(id).routing(voMetadata.readRouting(listVO))
+                .source(codec.encode(listVO), codec.contentType())
+                .versionType(VersionType.EXTERNAL).version(version);
+    }
+
+    private DeleteRequest buildDeleteRequest(String indexName, String id) {
+        return new DeleteRequest(indexName, id).routing(getRoutingById(id));
     }
 
     @Override
     public void index(String id) {
+        journal(id, WriteOperation.INDEX);
+        if (writeBehindBuffer != null) {
+            writeBehindBuffer.submit(id, WriteOperation.INDEX);
+            return;
+        }
+        List<String> searchIds = new ArrayList<>();
+        searchIds.add(id);
+        Timer.Sample sample = indexMetrics.start();
         try {
             List<T> voList = getVOListById(id);
             if (CollectionUtils.isEmpty(voList)) {
@@ -254,63 +1458,233 @@ public abstract class AbstractSearchService<T> implements BaseSearchService {
                 return;
             }
             for (T listVO : voList) {
-                IndexRequest indexRequest = new IndexRequest(getIndexName());
-                indexRequest.id(getSearchId(listVO)).setRefreshPolicy(refreshPolicy)
-                        .source(JSONObject.toJSONString(listVO, SerializerFeature.DisableCircularReferenceDetect), XContentType.JSON)
-                        .versionType(VersionType.EXTERNAL).version(System.currentTimeMillis());
-                IndexResponse indexResponse = client.index(indexRequest, RequestOptions.DEFAULT);
+                String searchId = getSearchId(listVO);
+                searchIds.add(searchId);
+                IndexRequest indexRequest = buildIndexRequest(getWriteIndexName(), searchId, listVO, System.currentTimeMillis());
+                if (contentFingerprints != null) {
+                    if (contentFingerprints.isUnchanged(searchId, indexRequest.source())) {
+                        logger.info(" index: {},id: {} unchanged, skipped", getIndexName(), searchId);
+                        continue;
+                    }
+                    contentFingerprints.remove(searchId);
+                }
+                indexRequest.setRefreshPolicy(refreshPolicy);
+                IndexResponse indexResponse = writeClient.index(indexRequest, RequestOptions.DEFAULT);
+                if (contentFingerprints != null) {
+                    contentFingerprints.put(searchId, indexRequest.source());
+                }
                 logger.info(" index: {},id: {} ,resp status {}", getIndexName(), id, indexResponse.status().getStatus());
             }
         } catch (Exception e) {
             logger.error(e.getMessage(), e);
+        } finally {
+            indexMetrics.stop(sample, IndexMetrics.INDEX);
+            invalidateQueryCache();
+            invalidateDocuments(searchIds);
         }
     }
 
     @Override
     public void delete(String id) {
+        journal(id, WriteOperation.DELETE);
+        if (rolloverManager != null) {
+            deleteFromGenerations(Collections.singletonList(id));
+            return;
+        }
+        if (writeBehindBuffer != null) {
+            writeBehindBuffer.submit(id, WriteOperation.DELETE);
+            return;
+        }
+        if (contentFingerprints != null) {
+            contentFingerprints.remove(id);
+        }
+        Timer.Sample sample = indexMetrics.start();
         try {
-            DeleteRequest deleteRequest = new DeleteRequest(getIndexName(), id).setRefreshPolicy(refreshPolicy);
-            client.delete(deleteRequest, RequestOptions.DEFAULT);
+            DeleteRequest deleteRequest = buildDeleteRequest(getIndexName(), id).setRefreshPolicy(refreshPolicy);
+            writeClient.delete(deleteRequest, RequestOptions.DEFAULT);
             logger.warn("delete index: {},id: {}", getIndexName(), id);
         } catch (Exception e) {
             logger.error(e.getMessage(), e);
+        } finally {
+            indexMetrics.stop(sample, IndexMetrics.DELETE);
+            invalidateQueryCache();
+            invalidateDocuments(Collections.singletonList(id));
+        }
+    }
+
+    /**
+     * 异步索引单个VO, 开启写缓冲时窗口期内同一id的写操作合并为一次bulk写入, 否则同步写入
+     */
+    public CompletableFuture<Void> indexAsync(String id) {
+        if (writeBehindBuffer == null) {
+            index(id);
+            return CompletableFuture.completedFuture(null);
+        }
+        journal(id, WriteOperation.INDEX);
+        return writeBehindBuffer.submit(id, WriteOperation.INDEX);
+    }
+
+    /**
+     * 异步删除单个文档, 语义同{@link #indexAsync(String)}
+     */
+    public CompletableFuture<Void> deleteAsync(String id) {
+        if (writeBehindBuffer == null) {
+            delete(id);
+            return CompletableFuture.completedFuture(null);
+        }
+        journal(id, WriteOperation.DELETE);
+        return writeBehindBuffer.submit(id, WriteOperation.DELETE);
+    }
+
+    private void flushWriteBehind(List<WriteBehindBuffer.PendingWrite> pendingWrites) {
+        BulkRequest bulkRequest = new BulkRequest();
+        List<WriteBehindBuffer.PendingWrite> owners = new ArrayList<>();
+        List<WriteBehindBuffer.PendingWrite> generationDeletes = new ArrayList<>();
+        for (WriteBehindBuffer.PendingWrite pendingWrite : pendingWrites) {
+            try {
+                if (pendingWrite.getOperation() == WriteOperation.DELETE && rolloverManager != null) {
+                    generationDeletes.add(pendingWrite);
+                } else if (pendingWrite.getOperation() == WriteOperation.DELETE) {
+                    bulkRequest.add(buildDeleteRequest(getIndexName(), pendingWrite.getId())
+                            .versionType(VersionType.EXTERNAL).version(pendingWrite.getVersion()));
+                    owners.add(pendingWrite);
+                } else {
+                    List<T> voList = getVOListById(pendingWrite.getId());
+                    if (CollectionUtils.isEmpty(voList)) {
+                        logger.error(" index: {},listVO is not exist, id: {}", getIndexName(), pendingWrite.getId());
+                        pendingWrite.getFuture().completeExceptionally(new IllegalStateException("listVO is not exist, id: " + pendingWrite.getId()));
+                        continue;
+                    }
+                    int added = 0;
+                    for (T listVO : voList) {
+                        IndexRequest indexRequest = buildIndexRequest(getWriteIndexName(), getSearchId(listVO), listVO, pendingWrite.getVersion());
+                        if (contentFingerprints != null && contentFingerprints.isUnchanged(indexRequest.id(), indexRequest.source())) {
+                            continue;
+                        }
+                        bulkRequest.add(indexRequest);
+                        owners.add(pendingWrite);
+                        added++;
+                    }
+                    if (added == 0) {
+                        pendingWrite.getFuture().complete(null);
+                    }
+                }
+            } catch (Exception e) {
+                logger.error(e.getMessage(), e);
+                pendingWrite.getFuture().completeExceptionally(e);
+            }
+            if (bulkRequest.numberOfActions() >= bulkSender.getBulkSizer().getBatchActions()
+                    || bulkRequest.estimatedSizeInBytes() >= elasticsearchProperties.getBulkMaxBytes()) {
+                sendWriteBehind(bulkRequest, owners);
+                bulkRequest = new BulkRequest();
+                owners = new ArrayList<>();
+            }
+        }
+        if (bulkRequest.numberOfActions() > 0) {
+            sendWriteBehind(bulkRequest, owners);
+        }
+        if (!generationDeletes.isEmpty()) {
+            // 滚动模式下窗口内的删除合并为一次按id的delete-by-query, 覆盖所有代
+            boolean deleted = deleteFromGenerations(generationDeletes.stream().map(WriteBehindBuffer.PendingWrite::getId)
+                    .collect(Collectors.toList()));
+            for (WriteBehindBuffer.PendingWrite pendingWrite : generationDeletes) {
+                if (deleted) {
+                    pendingWrite.getFuture().complete(null);
+                } else {
+                    pendingWrite.getFuture().completeExceptionally(new IllegalStateException("delete from generations failed, id: "
+                            + pendingWrite.getId()));
+                }
+            }
+        }
+    }
+
+    /**
+     * 经{@link BulkSender}发送, 被拒绝(429)的文档按退避重试并计入在途字节数
+     * 在写缓冲线程中同步执行, 集群繁忙时新的写操作继续在缓冲中合并
+     */
+    private void sendWriteBehind(BulkRequest bulkRequest, List<WriteBehindBuffer.PendingWrite> owners) {
+        List<String> ids = bulkRequest.requests().stream().map(DocWriteRequest::id).collect(Collectors.toList());
+        BulkResponse bulkResponse = sendBulkRequest(bulkRequest);
+        if (contentFingerprints != null) {
+            contentFingerprints.record(bulkRequest, bulkResponse);
+        }
+        invalidateQueryCache();
+        invalidateDocuments(ids);
+        if (bulkResponse == null) {
+            IllegalStateException e = new IllegalStateException("bulk request of index-" + getIndexName() + " failed");
+            owners.forEach(owner -> owner.getFuture().completeExceptionally(e));
+            return;
+        }
+        Map<WriteBehindBuffer.PendingWrite, String> failures = new IdentityHashMap<>();
+        for (BulkItemResponse item : bulkResponse.getItems()) {
+            // 版本冲突说明已有更新的写入, 当前写入过期丢弃
+            if (item.isFailed() && item.getFailure().getStatus() != RestStatus.CONFLICT) {
+                failures.put(owners.get(item.getItemId()), item.getFailureMessage());
+            }
+        }
+        for (WriteBehindBuffer.PendingWrite owner : owners) {
+            String failure = failures.get(owner);
+            if (failure == null) {
+                owner.getFuture().complete(null);
+            } else {
+                owner.getFuture().completeExceptionally(new IllegalStateException(failure));
+            }
         }
     }
 
     @Override
     public void batchDelete(List<String> idList) {
         if (CollectionUtils.isEmpty(idList)) { return; }
-        try {
-            BulkRequest bulkRequest = new BulkRequest().setRefreshPolicy(refreshPolicy);
-            for (String id : idList) {
-                DeleteRequest deleteRequest = new DeleteRequest(getIndexName(), id);
-                bulkRequest.add(deleteRequest);
+        if (rolloverManager != null) {
+            deleteFromGenerations(idList);
+            return;
+        }
+        Timer.Sample sample = indexMetrics.start();
+        BulkBuffer bulkBuffer = newBulkBuffer(0);
+        List<BulkRequest> bulkRequests = new ArrayList<>();
+        for (String id : idList) {
+            journal(id, WriteOperation.DELETE);
+            addBulkRequest(bulkRequests, bulkBuffer.add(buildDeleteRequest(getIndexName(), id)));
+        }
+        addBulkRequest(bulkRequests, bulkBuffer.flush());
+        boolean hasFailures = false;
+        long took = 0;
+        for (BulkRequest bulkRequest : bulkRequests) {
+            BulkResponse bulkResponse = sendBulkRequest(bulkRequest.setRefreshPolicy(refreshPolicy));
+            if (contentFingerprints != null) {
+                contentFingerprints.record(bulkRequest, bulkResponse);
+            }
+            if (bulkResponse == null || bulkResponse.hasFailures()) {
+                hasFailures = true;
+            }
+            if (bulkResponse != null) {
+                took += bulkResponse.getTook().millis();
             }
-            BulkResponse bulkResponse = client.bulk(bulkRequest, RequestOptions.DEFAULT);
-            logger.info("bulk delete index: {}, result-{},use-{}", getIndexName(), bulkResponse.hasFailures(), bulkResponse.getIngestTookInMillis());
-        } catch (Exception e) {
-            logger.error(e.getMessage(), e);
         }
+        indexMetrics.stop(sample, IndexMetrics.DELETE);
+        invalidateQueryCache();
+        invalidateDocuments(idList);
+        logger.info("bulk delete index: {}, result-{},use-{}", getIndexName(), hasFailures, took);
     }
 
     private void updateInitIndexSetting(String indexName, String indexSuffix) throws Exception {
         GetIndexRequest getIndexRequest = new GetIndexRequest();
         getIndexRequest.indices(indexName);
-        boolean exists = client.indices().exists(getIndexRequest, RequestOptions.DEFAULT);
+        boolean exists = writeClient.indices().exists(getIndexRequest, RequestOptions.DEFAULT);
         if (exists) {
             GetAliasesRequest getAliasesRequest = new GetAliasesRequest();
             getAliasesRequest.aliases(indexName);
-            GetAliasesResponse getAliasesResponse = client.indices().getAlias(getAliasesRequest, RequestOptions.DEFAULT);
+            GetAliasesResponse getAliasesResponse = writeClient.indices().getAlias(getAliasesRequest, RequestOptions.DEFAULT);
             Map<String, Set<AliasMetaData>> aliasesMap = getAliasesResponse.getAliases();
             if (aliasesMap.isEmpty()) {
                 logger.info("delete old index-{}", indexName);
                 DeleteIndexRequest deleteIndexRequest = new DeleteIndexRequest(indexName);
-                client.indices().delete(deleteIndexRequest, RequestOptions.DEFAULT);
+                writeClient.indices().delete(deleteIndexRequest, RequestOptions.DEFAULT);
                 IndicesAliasesRequest indicesAliasesRequest = new IndicesAliasesRequest();
                 IndicesAliasesRequest.AliasActions aliasAction = new IndicesAliasesRequest.AliasActions(IndicesAliasesRequest.AliasActions.Type.ADD);
                 aliasAction.index(indexName + indexSuffix).alias(indexName);
                 indicesAliasesRequest.addAliasAction(aliasAction);
-                client.indices().updateAliases(indicesAliasesRequest, RequestOptions.DEFAULT);
+                writeClient.indices().updateAliases(indicesAliasesRequest, RequestOptions.DEFAULT);
             } else {
                 String indexOriginName = aliasesMap.keySet().iterator().next();
                 if (indexOriginName == null) {
@@ -324,21 +1698,26 @@ public abstract class AbstractSearchService<T> implements BaseSearchService {
                 aliasAction.index(indexName + indexSuffix).alias(indexName);
                 indicesAliasesRequest.addAliasAction(removeAction);
                 indicesAliasesRequest.addAliasAction(aliasAction);
-                client.indices().updateAliases(indicesAliasesRequest, RequestOptions.DEFAULT);
+                writeClient.indices().updateAliases(indicesAliasesRequest, RequestOptions.DEFAULT);
                 DeleteIndexRequest deleteIndexRequest = new DeleteIndexRequest(indexOriginName);
-                client.indices().delete(deleteIndexRequest, RequestOptions.DEFAULT);
+                writeClient.indices().delete(deleteIndexRequest, RequestOptions.DEFAULT);
             }
         } else {
             IndicesAliasesRequest indicesAliasesRequest = new IndicesAliasesRequest();
             IndicesAliasesRequest.AliasActions aliasAction = new IndicesAliasesRequest.AliasActions(IndicesAliasesRequest.AliasActions.Type.ADD);
             aliasAction.index(indexName + indexSuffix).alias(indexName);
             indicesAliasesRequest.addAliasAction(aliasAction);
-            client.indices().updateAliases(indicesAliasesRequest, RequestOptions.DEFAULT);
+            writeClient.indices().updateAliases(indicesAliasesRequest, RequestOptions.DEFAULT);
+        }
+        invalidateQueryCache();
+        invalidateDocuments(null);
+        if (contentFingerprints != null) {
+            contentFingerprints.reset();
         }
 
         UpdateSettingsRequest updateSettingsRequest = new UpdateSettingsRequest(indexName);
-        updateSettingsRequest.settings(Settings.builder().put("index.refresh_interval", elasticsearchProperties.getRefreshInterval()));
-        AcknowledgedResponse acknowledgedResponse = client.indices().putSettings(updateSettingsRequest, RequestOptions.DEFAULT);
+        updateSettingsRequest.settings(Settings.builder().put(INDEX_REFRESH_INTERVAL, elasticsearchProperties.getRefreshInterval()));
+        AcknowledgedResponse acknowledgedResponse = writeClient.indices().putSettings(updateSettingsRequest, RequestOptions.DEFAULT);
         if (!acknowledgedResponse.isAcknowledged()) {
             logger.error("update index setting error -{}", indexName);
             throw new RuntimeException();
@@ -1,15 +1,39 @@
 package com.ra.elasticsearch.service;
 
+import java.io.IOException;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
-public interface BaseSearchService {
+public interface BaseSearchService<T> {
 
     void initIndex(String indexSuffix);
 
+    void resumeIndex(String indexSuffix);
+
+    void updateMapping(String indexSuffix);
+
+    void reindexFrom(String existingAlias, String indexSuffix);
+
+    /**
+     * 增量同步, 只写入内容变化的文档并删除数据源已不存在的文档
+     */
+    void deltaIndex();
+
     void index(String id);
 
     void delete(String id);
 
     void batchDelete(List<String> idList);
 
+    /**
+     * 按文档id实时读取, 文档不存在时返回null
+     */
+    T get(String id) throws IOException;
+
+    /**
+     * 按文档id批量实时读取, 结果按ids顺序排列, 不包含不存在的文档
+     */
+    Map<String, T> multiGet(Collection<String> ids) throws IOException;
+
 }
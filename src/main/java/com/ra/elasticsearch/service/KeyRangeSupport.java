@@ -0,0 +1,23 @@
+package com.ra.elasticsearch.service;
+
+import com.ra.elasticsearch.pipeline.KeyRange;
+
+import java.util.List;
+
+/**
+ * 按主键游标读取初始化索引数据, 服务实现该接口后全量索引按主键范围切片并行读取,
+ * 未实现时使用offset分页读取{@link AbstractSearchService#getListVOList(int, int)}
+ * 游标主键由{@link AbstractSearchService#getListVOKey(Object)}取得, 默认为searchId字段的值
+ */
+public interface KeyRangeSupport<T> {
+
+    /**
+     * 初始化索引数据源的主键范围, 返回null时仍使用offset分页读取
+     */
+    KeyRange getListVOKeyRange();
+
+    /**
+     * 返回主键在 (lastKey, maxKey] 内按主键升序排列的前pageSize条
+     */
+    List<T> getListVOListByKey(long lastKey, long maxKey, int pageSize);
+}
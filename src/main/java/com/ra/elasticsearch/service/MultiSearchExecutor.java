@@ -0,0 +1,21 @@
+package com.ra.elasticsearch.service;
+
+import org.elasticsearch.client.RestHighLevelClient;
+
+/**
+ * 创建跨索引的批量查询, 一个页面上多个service的查询通过一次_msearch完成
+ */
+public class MultiSearchExecutor {
+
+    private final RestHighLevelClient client;
+    private final int maxConcurrentSearches;
+
+    public MultiSearchExecutor(RestHighLevelClient client, int maxConcurrentSearches) {
+        this.client = client;
+        this.maxConcurrentSearches = maxConcurrentSearches;
+    }
+
+    public SearchBatch newBatch() {
+        return new SearchBatch(client, maxConcurrentSearches);
+    }
+}
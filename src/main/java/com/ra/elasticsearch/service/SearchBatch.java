@@ -0,0 +1,119 @@
+package com.ra.elasticsearch.service;
+
+import org.elasticsearch.action.search.MultiSearchRequest;
+import org.elasticsearch.action.search.MultiSearchResponse;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 收集多个service的查询, {@link #execute()}时通过一次_msearch发出, 各子查询结果由所属service解码
+ * 批量查询不经过查询缓存, 非线程安全
+ */
+public class SearchBatch {
+
+    private final RestHighLevelClient client;
+    private final int maxConcurrentSearches;
+    private final List<Item<?>> items = new ArrayList<>();
+    private boolean executed;
+
+    SearchBatch(RestHighLevelClient client, int maxConcurrentSearches) {
+        this.client = client;
+        this.maxConcurrentSearches = maxConcurrentSearches;
+    }
+
+    public <T> Item<T> add(AbstractSearchService<T> service, SearchSourceBuilder source) {
+        return add(service, null, source);
+    }
+
+    public <T> Item<T> add(AbstractSearchService<T> service, String routing, SearchSourceBuilder source) {
+        if (executed) {
+            throw new IllegalStateException("search batch already executed");
+        }
+        Item<T> item = new Item<>(service, routing, source);
+        items.add(item);
+        return item;
+    }
+
+    /**
+     * 发出全部查询, 单个子查询失败只影响对应的{@link Item}
+     */
+    public void execute() throws IOException {
+        if (executed) {
+            throw new IllegalStateException("search batch already executed");
+        }
+        executed = true;
+        if (items.isEmpty()) {
+            return;
+        }
+        MultiSearchRequest multiSearchRequest = new MultiSearchRequest();
+        if (maxConcurrentSearches > 0) {
+            multiSearchRequest.maxConcurrentSearchRequests(maxConcurrentSearches);
+        }
+        for (Item<?> item : items) {
+            multiSearchRequest.add(item.service.buildSearchRequest(item.routing, item.source));
+        }
+        MultiSearchResponse multiSearchResponse = client.msearch(multiSearchRequest, RequestOptions.DEFAULT);
+        MultiSearchResponse.Item[] responses = multiSearchResponse.getResponses();
+        for (int i = 0; i < items.size(); i++) {
+            items.get(i).complete(responses[i]);
+        }
+    }
+
+    public int size() {
+        return items.size();
+    }
+
+    public static class Item<T> {
+        private final AbstractSearchService<T> service;
+        private final String routing;
+        private final SearchSourceBuilder source;
+        private SearchResponse response;
+        private Exception failure;
+        private List<T> result;
+
+        private Item(AbstractSearchService<T> service, String routing, SearchSourceBuilder source) {
+            this.service = service;
+            this.routing = routing;
+            this.source = source;
+        }
+
+        private void complete(MultiSearchResponse.Item item) {
+            if (item.isFailure()) {
+                failure = item.getFailure();
+                return;
+            }
+            response = item.getResponse();
+            result = service.transformSearchResultData(response);
+        }
+
+        /**
+         * 解码后的VO列表, 子查询失败时抛出异常
+         */
+        public List<T> get() {
+            if (failure != null) {
+                throw new IllegalStateException("search of index-" + service.getIndexName() + " failed", failure);
+            }
+            if (response == null) {
+                throw new IllegalStateException("search batch not executed");
+            }
+            return result;
+        }
+
+        /**
+         * 原始响应, 用于读取总数与聚合结果, 子查询失败时为null
+         */
+        public SearchResponse getResponse() {
+            return response;
+        }
+
+        public Exception getFailure() {
+            return failure;
+        }
+    }
+}
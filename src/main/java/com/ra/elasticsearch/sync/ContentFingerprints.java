@@ -0,0 +1,146 @@
+package com.ra.elasticsearch.sync;
+
+import com.carrotsearch.hppc.LongHashSet;
+import com.carrotsearch.hppc.LongLongHashMap;
+import com.carrotsearch.hppc.cursors.LongLongCursor;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.hash.MurmurHash3;
+import org.elasticsearch.search.SearchHit;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * 索引中每个文档_source的内容指纹, 用于跳过内容未变化的写入
+ * 以文档id的64位哈希为键、_source字节的murmur3哈希为值存放在原始类型哈希表中, 每个文档约占20~30字节
+ * 只记录写入成功的内容, 写入失败或删除时移除; 未加载完成前不判断文档是否变化
+ */
+public class ContentFingerprints {
+
+    private static final long SEED = 0;
+    private final LongLongHashMap fingerprints = new LongLongHashMap();
+    /**
+     * 加载期间写入过的文档, 以写入结果为准, 不被加载的快照覆盖
+     */
+    private LongHashSet touched;
+    private long generation;
+    private volatile boolean loaded;
+
+    public static long hashId(String id) {
+        byte[] bytes = id.getBytes(StandardCharsets.UTF_8);
+        return MurmurHash3.hash128(bytes, 0, bytes.length, SEED, new MurmurHash3.Hash128()).h1;
+    }
+
+    public static long fingerprint(BytesReference source) {
+        BytesRef bytesRef = source.toBytesRef();
+        MurmurHash3.Hash128 hash = MurmurHash3.hash128(bytesRef.bytes, bytesRef.offset, bytesRef.length, SEED, new MurmurHash3.Hash128());
+        return hash.h1 ^ hash.h2;
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * 已加载且索引中该文档的内容与source一致
+     */
+    public boolean isUnchanged(String id, BytesReference source) {
+        if (!loaded) {
+            return false;
+        }
+        long key = hashId(id);
+        long value = fingerprint(source);
+        synchronized (this) {
+            int index = fingerprints.indexOf(key);
+            return fingerprints.indexExists(index) && fingerprints.indexGet(index) == value;
+        }
+    }
+
+    public void put(String id, BytesReference source) {
+        long key = hashId(id);
+        long value = fingerprint(source);
+        synchronized (this) {
+            fingerprints.put(key, value);
+            if (touched != null) {
+                touched.add(key);
+            }
+        }
+    }
+
+    public void remove(String id) {
+        long key = hashId(id);
+        synchronized (this) {
+            fingerprints.remove(key);
+            if (touched != null) {
+                touched.add(key);
+            }
+        }
+    }
+
+    /**
+     * 按bulk结果记录: 写入成功的文档记录新指纹, 删除或失败的文档移除指纹
+     */
+    public void record(BulkRequest bulkRequest, BulkResponse bulkResponse) {
+        List<DocWriteRequest<?>> requests = bulkRequest.requests();
+        for (int i = 0; i < requests.size(); i++) {
+            DocWriteRequest<?> request = requests.get(i);
+            boolean failed = bulkResponse == null || bulkResponse.getItems()[i].isFailed();
+            if (!failed && request instanceof IndexRequest) {
+                put(request.id(), ((IndexRequest) request).source());
+            } else {
+                remove(request.id());
+            }
+        }
+    }
+
+    /**
+     * 从索引中全量读取的_source加载指纹, 加载期间的写入以写入结果为准, 期间被重置时放弃本次加载
+     */
+    public void load(Iterator<SearchHit[]> pages) {
+        long loadGeneration;
+        synchronized (this) {
+            loadGeneration = ++generation;
+            touched = new LongHashSet();
+        }
+        LongLongHashMap snapshot = new LongLongHashMap();
+        while (pages.hasNext()) {
+            for (SearchHit hit : pages.next()) {
+                if (hit.getSourceRef() != null) {
+                    snapshot.put(hashId(hit.getId()), fingerprint(hit.getSourceRef()));
+                }
+            }
+        }
+        synchronized (this) {
+            if (generation != loadGeneration) {
+                return;
+            }
+            for (LongLongCursor cursor : snapshot) {
+                if (!touched.contains(cursor.key)) {
+                    fingerprints.put(cursor.key, cursor.value);
+                }
+            }
+            touched = null;
+            loaded = true;
+        }
+    }
+
+    /**
+     * 索引整体替换后清空, 需重新加载
+     */
+    public synchronized void reset() {
+        generation++;
+        fingerprints.clear();
+        touched = null;
+        loaded = false;
+    }
+
+    public synchronized int size() {
+        return fingerprints.size();
+    }
+}
@@ -3,14 +3,22 @@ package com.ra.elasticsearch.utils;
 import com.ra.elasticsearch.annotation.SearchableField;
 import com.ra.elasticsearch.enums.ESAnalyzer;
 import com.ra.elasticsearch.enums.ESType;
+import com.ra.elasticsearch.meta.MappingField;
+import com.ra.elasticsearch.meta.VOMetadata;
 import org.elasticsearch.action.admin.indices.create.CreateIndexRequest;
 import org.elasticsearch.action.admin.indices.create.CreateIndexResponse;
 import org.elasticsearch.action.admin.indices.mapping.put.PutMappingRequest;
+import org.elasticsearch.action.support.master.AcknowledgedResponse;
 import org.elasticsearch.client.RequestOptions;
 import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.util.ArrayUtils;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.XContentType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.util.StringUtils;
@@ -19,7 +27,9 @@ import java.io.IOException;
 import java.lang.reflect.Field;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -45,37 +55,91 @@ public class IndexBuildUtil {
     public static final String HIGHLIGHT_PRE_TAG = "\u200b";
     public static final String HIGHLIGHT_POST_TAG = "\u200c";
     public static final String COPY_TO_STRING = "copy_to";
+    public static final String ROUTING_STRING = "_routing";
+    public static final String REQUIRED_STRING = "required";
     private static final Logger logger = LoggerFactory.getLogger(IndexBuildUtil.class);
 
     private IndexBuildUtil() {
     }
 
     public static void reInitMapping(String indexName, String indexType, Class clazz, RestHighLevelClient client, String indexSuffix) {
-        createIndex(client, indexName, indexSuffix);
+        reInitMapping(indexName, indexType, clazz, client, indexSuffix, Settings.EMPTY);
+    }
+
+    /**
+     * 以指定的索引设置创建新索引并写入映射
+     */
+    public static void reInitMapping(String indexName, String indexType, Class clazz, RestHighLevelClient client, String indexSuffix, Settings settings) {
+        createIndex(client, indexName, indexSuffix, settings);
         try {
-            XContentBuilder xContentBuilder = XContentFactory.jsonBuilder();
-            xContentBuilder.startObject();
-            xContentBuilder.startObject(PROPERTIES_STRING);
+            putMapping(indexName + indexSuffix, indexType, buildMapping(clazz, true), client);
+        } catch (Exception e) {
+            logger.error(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 向已存在的索引写入VO的映射, 已有字段的不兼容变更会被ES拒绝
+     */
+    public static void putMapping(String indexName, String indexType, Class clazz, RestHighLevelClient client) throws IOException {
+        putMapping(indexName, indexType, buildMapping(clazz, false), client);
+    }
 
-            Field[] declaredFields = getAllClassFields(clazz, null);
-            buildFields(declaredFields, xContentBuilder);
+    private static void putMapping(String indexName, String indexType, XContentBuilder xContentBuilder, RestHighLevelClient client) throws IOException {
+        if (logger.isDebugEnabled()) {
+            logger.debug("mapping for {} is {}", indexName, Strings.toString(xContentBuilder));
+        }
+        PutMappingRequest putMappingRequest = new PutMappingRequest(indexName).type(indexType).source(xContentBuilder);
+        AcknowledgedResponse acknowledgedResponse = client.indices().putMapping(putMappingRequest, RequestOptions.DEFAULT);
+        if (!acknowledgedResponse.isAcknowledged()) {
+            throw new IllegalStateException("put mapping not acknowledged, index-" + indexName);
+        }
+    }
 
+    public static XContentBuilder buildMapping(Class clazz) throws IOException {
+        return buildMapping(clazz, false);
+    }
+
+    /**
+     * 新建索引使用的完整映射
+     */
+    public static XContentBuilder buildCreateMapping(Class clazz) throws IOException {
+        return buildMapping(clazz, true);
+    }
+
+    /**
+     * 新建索引时, 带{@link com.ra.elasticsearch.annotation.SearchRouting}字段的VO要求写入必须指定routing, 已存在的索引不能修改该设置
+     */
+    private static XContentBuilder buildMapping(Class clazz, boolean newIndex) throws IOException {
+        XContentBuilder xContentBuilder = XContentFactory.jsonBuilder();
+        xContentBuilder.startObject();
+        if (newIndex && VOMetadata.of(clazz).hasRoutingField()) {
+            xContentBuilder.startObject(ROUTING_STRING);
+            xContentBuilder.field(REQUIRED_STRING, true);
             xContentBuilder.endObject();
-            xContentBuilder.endObject();
-            if (logger.isDebugEnabled()) {
-                logger.debug("mapping for {} is {}", indexName + indexSuffix, xContentBuilder.getOutputStream().toString());
-            }
-            PutMappingRequest putMappingRequest = new PutMappingRequest(indexName + indexSuffix).type(indexType).source(xContentBuilder);
-            client.indices().putMapping(putMappingRequest, RequestOptions.DEFAULT);
-        } catch (Exception e) {
-            logger.error(e.getMessage(), e);
         }
+        xContentBuilder.startObject(PROPERTIES_STRING);
+
+        buildFields(VOMetadata.of(clazz).getMappingFields(), xContentBuilder);
+
+        xContentBuilder.endObject();
+        xContentBuilder.endObject();
+        return xContentBuilder;
+    }
+
+    /**
+     * VO生成的映射中properties部分, 用于与线上映射比较
+     */
+    @SuppressWarnings("unchecked")
+    public static Map<String, Object> buildMappingProperties(Class clazz) throws IOException {
+        Map<String, Object> mapping = XContentHelper.convertToMap(BytesReference.bytes(buildMapping(clazz)), true, XContentType.JSON).v2();
+        return (Map<String, Object>) mapping.get(PROPERTIES_STRING);
     }
 
-    private static void createIndex(RestHighLevelClient client, String indexName, String indexSuffix) {
+    private static void createIndex(RestHighLevelClient client, String indexName, String indexSuffix, Settings settings) {
         String newIndexName = indexName + indexSuffix;
         try {
-            CreateIndexRequest createIndexRequest = new CreateIndexRequest(newIndexName);
+            CreateIndexRequest createIndexRequest = new CreateIndexRequest(newIndexName).settings(settings);
             CreateIndexResponse createIndexResponse = client.indices().create(createIndexRequest, RequestOptions.DEFAULT);
             if (logger.isDebugEnabled()) {
                 logger.debug("result for create index-{} is {}", newIndexName, createIndexResponse.isAcknowledged());
@@ -85,35 +149,61 @@ public class IndexBuildUtil {
         }
     }
 
-    private static void buildListTypeContent(XContentBuilder xContentBuilder, Field field, String fieldName) throws IOException {
-        Class<?> tempType = field.getType();
-        if (tempType == List.class || tempType == Set.class) {
-            ParameterizedType genericType = (ParameterizedType) field.getGenericType();
-            Type[] actualTypeArguments = genericType.getActualTypeArguments();
-            Class actualTypeArgument = (Class) actualTypeArguments[0];
-            if (actualTypeArgument == String.class) {
-                xContentBuilder.startObject(fieldName);
-                xContentBuilder.field(TYPE_STRING, "keyword".toLowerCase());
-                xContentBuilder.endObject();
-            } else {
-                Field[] declaredFields = buildSuperClassFields(actualTypeArgument);
-                xContentBuilder.startObject(fieldName);
-                xContentBuilder.startObject(PROPERTIES_STRING);
-                buildFields(declaredFields, xContentBuilder);
-                xContentBuilder.endObject();
-                xContentBuilder.endObject();
+    /**
+     * 解析类及其父类上带{@link SearchableField}注解的字段映射描述
+     */
+    public static List<MappingField> resolveMappingFields(Class clazz) {
+        return resolveMappingFields(getAllClassFields(clazz, null));
+    }
+
+    private static List<MappingField> resolveMappingFields(Field[] fields) {
+        List<MappingField> mappingFields = new ArrayList<>();
+        for (Field field : fields) {
+            if (field == null) {
+                continue;
+            }
+            SearchableField annotation = field.getAnnotation(SearchableField.class);
+            if (annotation == null) {
+                continue;
             }
+            ESType esType = annotation.type();
+            boolean keywordList = false;
+            List<MappingField> properties = null;
+            if (esType == ESType.OBJECT) {
+                properties = resolveMappingFields(field.getType().getDeclaredFields());
+            } else if (esType == ESType.LIST) {
+                Class<?> tempType = field.getType();
+                if (tempType != List.class && tempType != Set.class) {
+                    throw new IllegalArgumentException(String.format("field type error %s,type %s", field.getName(), tempType.getName()));
+                }
+                ParameterizedType genericType = (ParameterizedType) field.getGenericType();
+                Type[] actualTypeArguments = genericType.getActualTypeArguments();
+                Class actualTypeArgument = (Class) actualTypeArguments[0];
+                if (actualTypeArgument == String.class) {
+                    keywordList = true;
+                } else {
+                    properties = resolveMappingFields(buildSuperClassFields(actualTypeArgument));
+                }
+            }
+            mappingFields.add(new MappingField(field.getName(), esType, annotation.analyzer(), annotation.copyTo(), keywordList, properties));
+        }
+        return mappingFields;
+    }
+
+    private static void buildListTypeContent(XContentBuilder xContentBuilder, MappingField field, String fieldName) throws IOException {
+        if (field.isKeywordList()) {
+            xContentBuilder.startObject(fieldName);
+            xContentBuilder.field(TYPE_STRING, "keyword".toLowerCase());
+            xContentBuilder.endObject();
         } else {
-            throw new IllegalArgumentException(String.format("field type error %s,type %s", field.getName(), tempType.getName()));
+            buildObjectTypeContent(xContentBuilder, field, fieldName);
         }
     }
 
-    private static void buildObjectTypeContent(XContentBuilder xContentBuilder, Field field, String fieldName) throws IOException {
-        Class<?> type = field.getType();
-        Field[] declaredFields = type.getDeclaredFields();
+    private static void buildObjectTypeContent(XContentBuilder xContentBuilder, MappingField field, String fieldName) throws IOException {
         xContentBuilder.startObject(fieldName);
         xContentBuilder.startObject(PROPERTIES_STRING);
-        buildFields(declaredFields, xContentBuilder);
+        buildFields(field.getProperties(), xContentBuilder);
         xContentBuilder.endObject();
         xContentBuilder.endObject();
     }
@@ -190,19 +280,11 @@ public class IndexBuildUtil {
         xContentBuilder.endObject();
     }
 
-    private static void buildFields(Field[] fields, XContentBuilder xContentBuilder) throws IOException {
-        for (Field field : fields) {
-            if (field == null) {
-                continue;
-            }
+    private static void buildFields(List<MappingField> fields, XContentBuilder xContentBuilder) throws IOException {
+        for (MappingField field : fields) {
             String fieldName = field.getName();
-
-            SearchableField annotation = field.getAnnotation(SearchableField.class);
-            if (annotation == null) {
-                continue;
-            }
-            ESType esType = annotation.type();
-            ESAnalyzer analyzer = annotation.analyzer();
+            ESType esType = field.getType();
+            ESAnalyzer analyzer = field.getAnalyzer();
 
             switch (esType) {
                 case OBJECT: {
@@ -220,7 +302,7 @@ public class IndexBuildUtil {
                         if (analyzer == ESAnalyzer.DEFAULT) {
                             xContentBuilder.startObject(fieldName);
                             xContentBuilder.field(TYPE_STRING, esType.name().toLowerCase());
-                            String copyToField = annotation.copyTo();
+                            String copyToField = field.getCopyTo();
                             if (!StringUtils.isEmpty(copyToField)) {
                                 xContentBuilder.field(COPY_TO_STRING, copyToField);
                             }
@@ -0,0 +1,86 @@
+package com.ra.elasticsearch.utils;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+import org.apache.http.util.EntityUtils;
+import org.elasticsearch.client.Request;
+import org.elasticsearch.client.Response;
+import org.elasticsearch.client.RestClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * 通过低级客户端提交 _reindex / _update_by_query 等后台任务并轮询任务状态
+ * 当前版本的高级客户端没有提交后台任务与查询任务的接口
+ */
+public class TaskUtil {
+    public static final String TASK_STRING = "task";
+    public static final String COMPLETED_STRING = "completed";
+    public static final String RESPONSE_STRING = "response";
+    public static final String FAILURES_STRING = "failures";
+    public static final String ERROR_STRING = "error";
+    public static final String STATUS_STRING = "status";
+    private static final Logger logger = LoggerFactory.getLogger(TaskUtil.class);
+
+    private TaskUtil() {
+    }
+
+    /**
+     * 以 wait_for_completion=false 提交任务, 返回任务id
+     */
+    public static String submit(RestClient restClient, String method, String endpoint, Map<String, String> params, String jsonBody) throws IOException {
+        Request request = new Request(method, endpoint);
+        request.addParameter("wait_for_completion", "false");
+        if (params != null) {
+            params.forEach(request::addParameter);
+        }
+        if (jsonBody != null) {
+            request.setJsonEntity(jsonBody);
+        }
+        JSONObject result = perform(restClient, request);
+        String taskId = result.getString(TASK_STRING);
+        if (taskId == null) {
+            throw new IllegalStateException("no task id in response of " + endpoint + ": " + result);
+        }
+        logger.info("submit task-{}, {} {}", taskId, method, endpoint);
+        return taskId;
+    }
+
+    /**
+     * 轮询任务直到完成, 返回任务结果中的response, 任务出错或存在失败文档时抛出异常
+     */
+    public static JSONObject waitForCompletion(RestClient restClient, String taskId, long pollIntervalMillis) throws IOException, InterruptedException {
+        while (true) {
+            JSONObject result = perform(restClient, new Request("GET", "/_tasks/" + taskId));
+            if (result.getBooleanValue(COMPLETED_STRING)) {
+                if (result.containsKey(ERROR_STRING)) {
+                    throw new IllegalStateException("task-" + taskId + " failed: " + result.get(ERROR_STRING));
+                }
+                JSONObject response = result.getJSONObject(RESPONSE_STRING);
+                JSONArray failures = response == null ? null : response.getJSONArray(FAILURES_STRING);
+                if (failures != null && !failures.isEmpty()) {
+                    throw new IllegalStateException("task-" + taskId + " has " + failures.size() + " failures, first: " + failures.get(0));
+                }
+                logger.info("task-{} completed, {}", taskId, response);
+                return response;
+            }
+            JSONObject task = result.getJSONObject(TASK_STRING);
+            JSONObject status = task == null ? null : task.getJSONObject(STATUS_STRING);
+            if (status != null) {
+                logger.info("task-{} progress, total: {}, created: {}, updated: {}, deleted: {}, conflicts: {}", taskId,
+                        status.get("total"), status.get("created"), status.get("updated"), status.get("deleted"),
+                        status.get("version_conflicts"));
+            }
+            Thread.sleep(pollIntervalMillis);
+        }
+    }
+
+    public static JSONObject perform(RestClient restClient, Request request) throws IOException {
+        Response response = restClient.performRequest(request);
+        return JSON.parseObject(EntityUtils.toString(response.getEntity()));
+    }
+}
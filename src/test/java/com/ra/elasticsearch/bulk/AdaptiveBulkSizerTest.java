@@ -0,0 +1,55 @@
+package com.ra.elasticsearch.bulk;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class AdaptiveBulkSizerTest {
+
+    @Test
+    public void initialActionsAreClamped() {
+        assertEquals(10, new AdaptiveBulkSizer(10, 100, 1, 100).getBatchActions());
+        assertEquals(100, new AdaptiveBulkSizer(10, 100, 1000, 100).getBatchActions());
+        assertEquals(1, new AdaptiveBulkSizer(0, 0, 5, 100).getBatchActions());
+    }
+
+    @Test
+    public void growsSlowlyWhenFasterThanTarget() {
+        AdaptiveBulkSizer sizer = new AdaptiveBulkSizer(10, 1000, 100, 100);
+        sizer.onCompleted(100, 10);
+        assertEquals(110, sizer.getBatchActions());
+        // 介于目标的80%与100%之间时保持不变
+        sizer.onCompleted(110, 90);
+        assertEquals(110, sizer.getBatchActions());
+    }
+
+    @Test
+    public void shrinksProportionallyButAtMostByHalf() {
+        AdaptiveBulkSizer sizer = new AdaptiveBulkSizer(10, 1000, 400, 100);
+        sizer.onCompleted(400, 200);
+        assertEquals(200, sizer.getBatchActions());
+        sizer.onCompleted(200, 10_000);
+        assertEquals(100, sizer.getBatchActions());
+        sizer.onCompleted(100, 125);
+        assertEquals(80, sizer.getBatchActions());
+    }
+
+    @Test
+    public void ignoresPartialBatchesAndDisabledTarget() {
+        AdaptiveBulkSizer sizer = new AdaptiveBulkSizer(10, 1000, 100, 100);
+        sizer.onCompleted(49, 10_000);
+        assertEquals(100, sizer.getBatchActions());
+        AdaptiveBulkSizer fixed = new AdaptiveBulkSizer(10, 1000, 100, 0);
+        fixed.onCompleted(100, 10_000);
+        assertEquals(100, fixed.getBatchActions());
+    }
+
+    @Test
+    public void rejectionHalvesDownToMin() {
+        AdaptiveBulkSizer sizer = new AdaptiveBulkSizer(30, 1000, 100, 0);
+        sizer.onRejected();
+        assertEquals(50, sizer.getBatchActions());
+        sizer.onRejected();
+        assertEquals(30, sizer.getBatchActions());
+    }
+}
@@ -0,0 +1,63 @@
+package com.ra.elasticsearch.bulk;
+
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.delete.DeleteRequest;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class BulkBufferTest {
+
+    private static IndexRequest indexRequest(String id, int sourceBytes) {
+        StringBuilder value = new StringBuilder();
+        for (int i = 0; i < sourceBytes; i++) {
+            value.append('x');
+        }
+        return new IndexRequest("test").id(id).source("{\"v\":\"" + value + "\"}", XContentType.JSON);
+    }
+
+    @Test
+    public void flushesWhenBatchActionsReached() {
+        BulkBuffer buffer = new BulkBuffer(new AdaptiveBulkSizer(3, 3, 3, 0), 0, 0);
+        assertNull(buffer.add(indexRequest("1", 1)));
+        assertNull(buffer.add(new DeleteRequest("test", "2")));
+        BulkRequest bulkRequest = buffer.add(indexRequest("3", 1));
+        assertNotNull(bulkRequest);
+        assertEquals(3, bulkRequest.numberOfActions());
+        assertNull(buffer.flush());
+    }
+
+    @Test
+    public void flushesWhenMaxBytesReached() {
+        BulkBuffer buffer = new BulkBuffer(new AdaptiveBulkSizer(1000, 1000, 1000, 0), 1024, 0);
+        assertNull(buffer.add(indexRequest("1", 400)));
+        BulkRequest bulkRequest = buffer.add(indexRequest("2", 700));
+        assertNotNull(bulkRequest);
+        assertEquals(2, bulkRequest.numberOfActions());
+    }
+
+    @Test
+    public void flushesWhenIntervalExpired() throws InterruptedException {
+        BulkBuffer buffer = new BulkBuffer(new AdaptiveBulkSizer(1000, 1000, 1000, 0), 0, 20);
+        assertNull(buffer.flushIfExpired());
+        assertNull(buffer.add(indexRequest("1", 1)));
+        Thread.sleep(30);
+        BulkRequest bulkRequest = buffer.flushIfExpired();
+        assertNotNull(bulkRequest);
+        assertEquals(1, bulkRequest.numberOfActions());
+        assertNull(buffer.flushIfExpired());
+    }
+
+    @Test
+    public void followsAdaptiveBatchSize() {
+        AdaptiveBulkSizer sizer = new AdaptiveBulkSizer(2, 100, 4, 0);
+        BulkBuffer buffer = new BulkBuffer(sizer, 0, 0);
+        sizer.onRejected();
+        assertNull(buffer.add(indexRequest("1", 1)));
+        assertNotNull(buffer.add(indexRequest("2", 1)));
+    }
+}
@@ -0,0 +1,147 @@
+package com.ra.elasticsearch.bulk;
+
+import org.elasticsearch.ElasticsearchStatusException;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.index.IndexResponse;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.rest.RestStatus;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 按顺序返回预置的bulk结果, 校验429部分重试时结果回填到原请求中的位置
+ */
+public class BulkSenderTest {
+
+    private final List<List<String>> requestedIds = new ArrayList<>();
+    private final Queue<Predicate<String>> rejections = new LinkedList<>();
+
+    private final BulkSender.BulkExecutor executor = bulkRequest -> {
+        List<String> ids = bulkRequest.requests().stream().map(DocWriteRequest::id).collect(Collectors.toList());
+        requestedIds.add(ids);
+        Predicate<String> rejected = rejections.remove();
+        if (rejected == null) {
+            throw new ElasticsearchStatusException("rejected", RestStatus.TOO_MANY_REQUESTS);
+        }
+        BulkItemResponse[] items = new BulkItemResponse[ids.size()];
+        for (int i = 0; i < items.length; i++) {
+            String id = ids.get(i);
+            items[i] = rejected.test(id)
+                    ? new BulkItemResponse(i, DocWriteRequest.OpType.INDEX,
+                    new BulkItemResponse.Failure("test", "_doc", id, new EsRejectedExecutionException("rejected")))
+                    : new BulkItemResponse(i, DocWriteRequest.OpType.INDEX,
+                    new IndexResponse(new ShardId("test", "_na_", 0), "_doc", id, 0, 1, 1, true));
+        }
+        return new BulkResponse(items, 1);
+    };
+
+    private BulkSender sender(AdaptiveBulkSizer sizer, int maxRetries) {
+        return new BulkSender(executor, sizer, "test", maxRetries, 1, 2, 1 << 20);
+    }
+
+    @Test
+    public void retriesOnlyRejectedItemsAndRestoresTheirPositions() throws Exception {
+        rejections.add(id -> id.equals("1") || id.equals("3"));
+        rejections.add(id -> false);
+        AdaptiveBulkSizer sizer = new AdaptiveBulkSizer(1, 1000, 100, 0);
+        BulkSender sender = sender(sizer, 3);
+
+        BulkResponse response = sender.send(bulkRequest("0", "1", "2", "3"));
+
+        assertEquals(Arrays.asList(Arrays.asList("0", "1", "2", "3"), Arrays.asList("1", "3")), requestedIds);
+        assertFalse(response.hasFailures());
+        BulkItemResponse[] items = response.getItems();
+        assertEquals(4, items.length);
+        for (int i = 0; i < items.length; i++) {
+            assertEquals(i, items[i].getItemId());
+            assertEquals(String.valueOf(i), items[i].getId());
+        }
+        assertEquals(50, sizer.getBatchActions());
+        assertEquals(0, sender.getInFlightBytes());
+    }
+
+    @Test
+    public void repositionsAcrossSeveralRetries() throws Exception {
+        rejections.add(id -> !id.equals("0"));
+        rejections.add(id -> id.equals("4"));
+        rejections.add(id -> false);
+
+        BulkResponse response = sender(new AdaptiveBulkSizer(1, 1000, 100, 0), 3).send(bulkRequest("0", "1", "2", "3", "4"));
+
+        assertEquals(Arrays.asList("4"), requestedIds.get(2));
+        BulkItemResponse[] items = response.getItems();
+        for (int i = 0; i < items.length; i++) {
+            assertEquals(i, items[i].getItemId());
+            assertEquals(String.valueOf(i), items[i].getId());
+            assertFalse(items[i].isFailed());
+        }
+    }
+
+    @Test
+    public void keepsRejectionAtOriginalPositionAfterRetriesExhausted() throws Exception {
+        rejections.add(id -> id.equals("2"));
+        rejections.add(id -> true);
+
+        BulkResponse response = sender(new AdaptiveBulkSizer(1, 1000, 100, 0), 1).send(bulkRequest("0", "1", "2"));
+
+        assertEquals(2, requestedIds.size());
+        BulkItemResponse[] items = response.getItems();
+        assertFalse(items[0].isFailed());
+        assertFalse(items[1].isFailed());
+        assertTrue(items[2].isFailed());
+        assertEquals(2, items[2].getItemId());
+        assertEquals("2", items[2].getId());
+        assertEquals(RestStatus.TOO_MANY_REQUESTS, items[2].getFailure().getStatus());
+    }
+
+    @Test
+    public void retriesWholeRequestRejectedWith429() throws Exception {
+        rejections.add(null);
+        rejections.add(id -> false);
+        AdaptiveBulkSizer sizer = new AdaptiveBulkSizer(1, 1000, 100, 0);
+
+        BulkResponse response = sender(sizer, 2).send(bulkRequest("0", "1"));
+
+        assertEquals(2, requestedIds.size());
+        assertEquals(requestedIds.get(0), requestedIds.get(1));
+        assertFalse(response.hasFailures());
+        assertEquals(50, sizer.getBatchActions());
+    }
+
+    @Test
+    public void throwsWholeRequestRejectionAfterRetriesExhausted() {
+        rejections.add(null);
+        rejections.add(null);
+        BulkSender sender = sender(new AdaptiveBulkSizer(1, 1000, 100, 0), 1);
+
+        assertThrows(ElasticsearchStatusException.class, () -> sender.send(bulkRequest("0")));
+        assertEquals(2, requestedIds.size());
+        assertEquals(0, sender.getInFlightBytes());
+    }
+
+    private static BulkRequest bulkRequest(String... ids) {
+        BulkRequest bulkRequest = new BulkRequest();
+        for (String id : ids) {
+            bulkRequest.add(new IndexRequest("test").id(id).source("{\"v\":" + id + "}", XContentType.JSON));
+        }
+        return bulkRequest;
+    }
+}
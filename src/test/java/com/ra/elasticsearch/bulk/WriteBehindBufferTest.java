@@ -0,0 +1,97 @@
+package com.ra.elasticsearch.bulk;
+
+import com.ra.elasticsearch.enums.WriteOperation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 窗口足够长, 由测试手动flush
+ */
+public class WriteBehindBufferTest {
+
+    private final List<List<WriteBehindBuffer.PendingWrite>> batches = new ArrayList<>();
+    private final WriteBehindBuffer buffer = new WriteBehindBuffer("test", 60_000, batch -> {
+        batches.add(batch);
+        batch.forEach(pendingWrite -> pendingWrite.getFuture().complete(null));
+    });
+
+    @AfterEach
+    public void tearDown() {
+        buffer.close();
+    }
+
+    @Test
+    public void coalescesWritesToSameIdIntoLastOperation() {
+        CompletableFuture<Void> first = buffer.submit("1", WriteOperation.INDEX);
+        CompletableFuture<Void> second = buffer.submit("1", WriteOperation.DELETE);
+        CompletableFuture<Void> other = buffer.submit("2", WriteOperation.INDEX);
+        assertSame(first, second);
+        assertFalse(first.isDone());
+
+        buffer.flush();
+
+        assertEquals(1, batches.size());
+        List<WriteBehindBuffer.PendingWrite> batch = new ArrayList<>(batches.get(0));
+        batch.sort(Comparator.comparing(WriteBehindBuffer.PendingWrite::getId));
+        assertEquals(2, batch.size());
+        assertEquals(WriteOperation.DELETE, batch.get(0).getOperation());
+        assertEquals(WriteOperation.INDEX, batch.get(1).getOperation());
+        assertTrue(first.isDone());
+        assertTrue(other.isDone());
+    }
+
+    @Test
+    public void versionsNeverGoBackwardsAcrossWindows() {
+        long previous = 0;
+        for (int window = 0; window < 3; window++) {
+            for (int i = 0; i < 100; i++) {
+                buffer.submit("1", i % 2 == 0 ? WriteOperation.INDEX : WriteOperation.DELETE);
+            }
+            buffer.flush();
+            long version = batches.get(window).get(0).getVersion();
+            assertTrue(version > previous, "window " + window + ": " + version + " <= " + previous);
+            previous = version;
+        }
+    }
+
+    @Test
+    public void emptyFlushDoesNotCallFlusher() {
+        buffer.flush();
+        assertTrue(batches.isEmpty());
+    }
+
+    @Test
+    public void flusherFailureFailsPendingFutures() {
+        WriteBehindBuffer failing = new WriteBehindBuffer("failing", 60_000, batch -> {
+            throw new IllegalStateException("bulk failed");
+        });
+        try {
+            CompletableFuture<Void> future = failing.submit("1", WriteOperation.INDEX);
+            failing.flush();
+            ExecutionException e = assertThrows(ExecutionException.class, future::get);
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        } finally {
+            failing.close();
+        }
+    }
+
+    @Test
+    public void closeFlushesRemainingWrites() {
+        CompletableFuture<Void> future = buffer.submit("1", WriteOperation.INDEX);
+        buffer.close();
+        assertTrue(future.isDone());
+        assertEquals(1, batches.size());
+    }
+}
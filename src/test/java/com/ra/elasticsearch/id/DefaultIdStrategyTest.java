@@ -0,0 +1,98 @@
+package com.ra.elasticsearch.id;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DefaultIdStrategyTest {
+
+    private final DefaultIdStrategy murmur3 = new DefaultIdStrategy(DefaultIdStrategy.MURMUR3);
+    private final DefaultIdStrategy sha1 = new DefaultIdStrategy("SHA1");
+
+    private static String repeat(String s, int times) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < times; i++) {
+            builder.append(s);
+        }
+        return builder.toString();
+    }
+
+    @Test
+    public void integersAreDecimalAndOtherValuesUseToString() {
+        assertEquals("42", murmur3.toId(42));
+        assertEquals("-9223372036854775808", murmur3.toId(Long.MIN_VALUE));
+        assertEquals("7", murmur3.toId((short) 7));
+        assertEquals("1.50", murmur3.toId(new BigDecimal("1.50")));
+        assertEquals("abc", murmur3.toId("abc"));
+    }
+
+    @Test
+    public void nullAndEmptyValuesAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> murmur3.toId(null));
+        assertThrows(IllegalArgumentException.class, () -> murmur3.toId(""));
+        assertThrows(IllegalArgumentException.class, () -> murmur3.toCompositeId("a", null));
+    }
+
+    @Test
+    public void unsupportedAlgorithmIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new DefaultIdStrategy("md5"));
+    }
+
+    @Test
+    public void compositeIdEscapesSeparatorAndEscape() {
+        assertEquals("1|abc", murmur3.toCompositeId(1, "abc"));
+        assertEquals("a\\|b|c", murmur3.toCompositeId("a|b", "c"));
+        assertEquals("a\\\\|b", murmur3.toCompositeId("a\\", "b"));
+        assertEquals(murmur3.toId("x|y"), murmur3.toCompositeId("x|y"));
+    }
+
+    @Test
+    public void differentCompositeValuesNeverShareAnId() {
+        List<Object[]> values = Arrays.asList(
+                new Object[]{"a|b", "c"}, new Object[]{"a", "b|c"}, new Object[]{"a", "b", "c"},
+                new Object[]{"a\\", "b"}, new Object[]{"a\\|b"}, new Object[]{"a", "\\|b"},
+                new Object[]{"a\\", "|b"}, new Object[]{"", "a"}, new Object[]{"a", ""});
+        HashSet<String> ids = new HashSet<>();
+        for (Object[] value : values) {
+            ids.add(murmur3.toCompositeId(value));
+        }
+        assertEquals(values.size(), ids.size());
+    }
+
+    @Test
+    public void idsUpTo512Utf8BytesAreKept() {
+        String ascii = repeat("a", DefaultIdStrategy.MAX_ID_BYTES);
+        assertEquals(ascii, murmur3.toId(ascii));
+        // 510字节, 按char数估算会超过上限, 需按实际UTF-8长度判断
+        String chinese = repeat("中", 170);
+        assertEquals(chinese, murmur3.toId(chinese));
+        String mixed = repeat("中", 170) + "ab";
+        assertEquals(512, mixed.getBytes(StandardCharsets.UTF_8).length);
+        assertEquals(mixed, murmur3.toId(mixed));
+    }
+
+    @Test
+    public void longerIdsAreDigested() {
+        String ascii = repeat("a", DefaultIdStrategy.MAX_ID_BYTES + 1);
+        String murmur3Id = murmur3.toId(ascii);
+        String sha1Id = sha1.toId(ascii);
+        assertEquals(22, murmur3Id.length());
+        assertEquals(27, sha1Id.length());
+        assertTrue(murmur3Id.matches("[A-Za-z0-9_-]+"), murmur3Id);
+        assertEquals(murmur3Id, new DefaultIdStrategy("murmur3").toId(ascii));
+        assertNotEquals(murmur3Id, murmur3.toId(repeat("a", DefaultIdStrategy.MAX_ID_BYTES + 2)));
+
+        String chinese = repeat("中", 171);
+        assertEquals(22, murmur3.toId(chinese).length());
+        assertEquals(22, murmur3.toCompositeId(repeat("a", 300), repeat("b", 300)).length());
+    }
+}
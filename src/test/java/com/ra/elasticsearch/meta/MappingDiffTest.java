@@ -0,0 +1,108 @@
+package com.ra.elasticsearch.meta;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.parser.Feature;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MappingDiffTest {
+
+    private static Map<String, Object> properties(String json) {
+        return JSON.parseObject(json.replace('\'', '"'), Feature.OrderedField);
+    }
+
+    private static MappingDiff compare(String expected, String live) {
+        return MappingDiff.compare(properties(expected), properties(live));
+    }
+
+    @Test
+    public void identicalMappingsHaveNoDiff() {
+        String mapping = "{'name':{'type':'text','analyzer':'ik_max_word','fields':{'raw':{'type':'keyword'}}},"
+                + "'age':{'type':'integer'}}";
+        MappingDiff diff = compare(mapping, mapping);
+        assertTrue(diff.isEmpty());
+        assertTrue(diff.isCompatible());
+    }
+
+    @Test
+    public void newFieldIsAddedWithoutBackfill() {
+        MappingDiff diff = compare("{'name':{'type':'keyword'},'age':{'type':'integer'}}", "{'name':{'type':'keyword'}}");
+        assertTrue(diff.isCompatible());
+        assertEquals(Collections.singleton("age"), diff.getAddedFields());
+        assertTrue(diff.getBackfillFields().isEmpty());
+    }
+
+    @Test
+    public void liveOnlyFieldsAreIgnored() {
+        assertTrue(compare("{'name':{'type':'keyword'}}", "{'name':{'type':'keyword'},'legacy':{'type':'long'}}").isEmpty());
+    }
+
+    @Test
+    public void newMultiFieldNeedsBackfillOfSourceField() {
+        MappingDiff diff = compare("{'name':{'type':'text','fields':{'raw':{'type':'keyword'}}}}", "{'name':{'type':'text'}}");
+        assertTrue(diff.isCompatible());
+        assertEquals(Collections.singleton("name.raw"), diff.getAddedFields());
+        assertEquals(Collections.singleton("name"), diff.getBackfillFields());
+    }
+
+    @Test
+    public void copyToChangeNeedsBackfillAndIgnoresSingleElementArray() {
+        MappingDiff changed = compare("{'name':{'type':'text','copy_to':'all'}}", "{'name':{'type':'text'}}");
+        assertTrue(changed.isCompatible());
+        assertEquals(Collections.singleton("name"), changed.getBackfillFields());
+        assertTrue(compare("{'name':{'type':'text','copy_to':'all'}}", "{'name':{'type':'text','copy_to':['all']}}").isEmpty());
+    }
+
+    @Test
+    public void typeAndAnalyzerChangesConflict() {
+        MappingDiff diff = compare("{'age':{'type':'long'},'name':{'type':'text','analyzer':'ik_smart'}}",
+                "{'age':{'type':'integer'},'name':{'type':'text','analyzer':'ik_max_word'}}");
+        assertFalse(diff.isCompatible());
+        assertEquals(Arrays.asList("age.type: integer -> long", "name.analyzer: ik_max_word -> ik_smart"), diff.getConflicts());
+    }
+
+    @Test
+    public void removedParameterConflicts() {
+        MappingDiff diff = compare("{'name':{'type':'text'}}", "{'name':{'type':'text','analyzer':'ik_smart'}}");
+        assertEquals(Collections.singletonList("name.analyzer: ik_smart -> null"), diff.getConflicts());
+    }
+
+    @Test
+    public void booleanAndNumberParametersCompareAsStrings() {
+        assertTrue(compare("{'name':{'type':'keyword','index':false,'ignore_above':256}}",
+                "{'name':{'type':'keyword','index':'false','ignore_above':'256'}}").isEmpty());
+    }
+
+    @Test
+    public void nestedObjectPropertiesAreComparedByPath() {
+        MappingDiff diff = compare("{'shop':{'properties':{'id':{'type':'long'},'city':{'type':'keyword'},'tag':{'type':'keyword'}}}}",
+                "{'shop':{'type':'object','properties':{'id':{'type':'integer'},'city':{'type':'keyword'}}}}");
+        assertEquals(Collections.singleton("shop.tag"), diff.getAddedFields());
+        assertEquals(Collections.singletonList("shop.id.type: integer -> long"), diff.getConflicts());
+    }
+
+    @Test
+    public void objectAndNestedOrLeafMismatchConflicts() {
+        assertEquals(Collections.singletonList("shop: object -> nested"),
+                compare("{'shop':{'type':'nested','properties':{'id':{'type':'long'}}}}",
+                        "{'shop':{'properties':{'id':{'type':'long'}}}}").getConflicts());
+        assertEquals(Collections.singletonList("shop: keyword -> object"),
+                compare("{'shop':{'properties':{'id':{'type':'long'}}}}", "{'shop':{'type':'keyword'}}").getConflicts());
+    }
+
+    @Test
+    public void diffsInsideMultiFieldsUseFullPath() {
+        MappingDiff diff = compare("{'name':{'type':'text','fields':{'raw':{'type':'keyword','ignore_above':128},'py':{'type':'text'}}}}",
+                "{'name':{'type':'text','fields':{'raw':{'type':'keyword','ignore_above':256}}}}");
+        assertEquals(new LinkedHashSet<>(Collections.singletonList("name.py")), diff.getAddedFields());
+        assertEquals(Collections.singletonList("name.raw.ignore_above: 256 -> 128"), diff.getConflicts());
+    }
+}
@@ -0,0 +1,73 @@
+package com.ra.elasticsearch.pipeline;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class KeyRangeTest {
+
+    @Test
+    public void rejectsInvertedRange() {
+        assertThrows(IllegalArgumentException.class, () -> new KeyRange(10, 9));
+    }
+
+    @Test
+    public void splitCoversRangeWithoutGapsOrOverlap() {
+        for (long max : new long[]{0, 1, 7, 99, 100, 101, 1000}) {
+            for (int parts : new int[]{1, 2, 3, 8, 64}) {
+                List<KeyRange> ranges = new KeyRange(0, max).split(parts);
+                assertTrue(ranges.size() <= parts, "parts " + parts + ", max " + max);
+                assertEquals(0, ranges.get(0).getMin());
+                assertEquals(max, ranges.get(ranges.size() - 1).getMax());
+                for (int i = 1; i < ranges.size(); i++) {
+                    assertEquals(ranges.get(i - 1).getMax() + 1, ranges.get(i).getMin());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void splitSingleKeyAndSinglePart() {
+        List<KeyRange> single = new KeyRange(5, 5).split(4);
+        assertEquals(1, single.size());
+        assertEquals("[5, 5]", single.get(0).toString());
+        KeyRange range = new KeyRange(1, 100);
+        assertEquals(Collections.singletonList(range), range.split(1));
+    }
+
+    @Test
+    public void splitFullLongRangeDoesNotOverflow() {
+        List<KeyRange> ranges = new KeyRange(Long.MAX_VALUE - 10, Long.MAX_VALUE).split(4);
+        assertEquals(Long.MAX_VALUE, ranges.get(ranges.size() - 1).getMax());
+        KeyRange full = new KeyRange(Long.MIN_VALUE, Long.MAX_VALUE);
+        assertEquals(Collections.singletonList(full), full.split(4));
+    }
+
+    @Test
+    public void keyRangePageSourceReadsRangeInOrder() throws Exception {
+        List<Long> keys = LongStream.rangeClosed(1, 25).boxed().collect(Collectors.toList());
+        List<long[]> reads = new ArrayList<>();
+        KeyRangePageSource<Long> source = new KeyRangePageSource<>((lastKey, maxKey, pageSize) -> {
+            reads.add(new long[]{lastKey, maxKey});
+            return keys.stream().filter(key -> key > lastKey && key <= maxKey).limit(pageSize).collect(Collectors.toList());
+        }, Long::longValue, new KeyRange(3, 20), 5);
+        List<Long> read = new ArrayList<>();
+        List<Long> page;
+        while ((page = source.nextPage()) != null && !page.isEmpty()) {
+            read.addAll(page);
+        }
+        assertEquals(LongStream.rangeClosed(3, 20).boxed().collect(Collectors.toList()), read);
+        // 最后一页读到范围上界, 不再发起空查询
+        assertEquals(4, reads.size());
+        assertEquals(Arrays.asList(2L, 7L, 12L, 17L), reads.stream().map(r -> r[0]).collect(Collectors.toList()));
+    }
+}
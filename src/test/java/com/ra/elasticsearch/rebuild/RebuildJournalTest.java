@@ -0,0 +1,64 @@
+package com.ra.elasticsearch.rebuild;
+
+import com.ra.elasticsearch.enums.WriteOperation;
+import org.elasticsearch.action.index.IndexRequest;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RebuildJournalTest {
+
+    @Test
+    public void keepsLastOperationPerId() {
+        RebuildJournal journal = new RebuildJournal("test_1");
+        journal.record("1", WriteOperation.INDEX);
+        journal.record("1", WriteOperation.DELETE);
+        journal.record("2", WriteOperation.INDEX);
+
+        Map<String, WriteOperation> entries = journal.drain();
+
+        assertEquals(WriteOperation.DELETE, entries.get("1"));
+        assertEquals(WriteOperation.INDEX, entries.get("2"));
+        assertTrue(journal.drain().isEmpty());
+    }
+
+    @Test
+    public void documentAndDeleteOfSameIdReplaceEachOther() {
+        RebuildJournal journal = new RebuildJournal("test_1");
+        journal.record("1", WriteOperation.DELETE);
+        journal.recordDocument(new IndexRequest("test").id("1"));
+        assertTrue(journal.drain().isEmpty());
+        List<IndexRequest> documents = journal.drainDocuments();
+        assertEquals(1, documents.size());
+        assertEquals("1", documents.get(0).id());
+
+        journal.recordDocument(new IndexRequest("test").id("2"));
+        journal.record("2", WriteOperation.DELETE);
+        assertTrue(journal.drainDocuments().isEmpty());
+        assertEquals(Collections.singletonMap("2", WriteOperation.DELETE), journal.drain());
+    }
+
+    @Test
+    public void overflowsOnlyWhenBounded() {
+        RebuildJournal journal = new RebuildJournal("test_1");
+        journal.record("1", WriteOperation.INDEX);
+        journal.recordDocument(new IndexRequest("test").id("2"));
+        journal.record("3", WriteOperation.INDEX);
+        assertEquals(3, journal.size());
+        assertFalse(journal.isOverflowed());
+
+        journal.setMaxEntries(3);
+        assertFalse(journal.isOverflowed());
+        journal.record("4", WriteOperation.DELETE);
+        assertTrue(journal.isOverflowed());
+
+        journal.setMaxEntries(0);
+        assertFalse(journal.isOverflowed());
+    }
+}
@@ -0,0 +1,238 @@
+package com.ra.elasticsearch.rebuild;
+
+import com.ra.elasticsearch.pipeline.PageSource;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.index.IndexResponse;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.index.engine.VersionConflictEngineException;
+import org.elasticsearch.index.shard.ShardId;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RebuildProgressTest {
+
+    private final List<Long> savedCursors = new ArrayList<>();
+    private final CheckpointStore store = new CheckpointStore() {
+        @Override
+        public RebuildCheckpoint load(String alias) {
+            return null;
+        }
+
+        @Override
+        public void save(RebuildCheckpoint checkpoint) {
+            savedCursors.add(checkpoint.getSlices().get(0).getCursor());
+        }
+
+        @Override
+        public void delete(String alias) {
+        }
+    };
+
+    private static RebuildCheckpoint checkpoint(String mode, long cursor, long max) {
+        RebuildCheckpoint checkpoint = new RebuildCheckpoint("test", "test_1", mode);
+        checkpoint.getSlices().add(new SliceCheckpoint("slice-0", cursor, max));
+        return checkpoint;
+    }
+
+    private static List<Long> keys(long from, long to) {
+        List<Long> keys = new ArrayList<>();
+        for (long key = from; key <= to; key++) {
+            keys.add(key);
+        }
+        return keys;
+    }
+
+    /**
+     * 模拟serialize阶段, 每个VO转换为一个写请求
+     */
+    private static BulkRequest serialize(RebuildProgress progress, List<Long> page) {
+        List<IndexRequest> requests = page.stream().map(key -> new IndexRequest("test_1").id(String.valueOf(key)))
+                .collect(Collectors.toList());
+        progress.onSerialized(page, requests);
+        BulkRequest bulkRequest = new BulkRequest();
+        requests.forEach(bulkRequest::add);
+        return bulkRequest;
+    }
+
+    private static BulkResponse response(BulkRequest bulkRequest, boolean created, String failedId) {
+        return response(bulkRequest, created, failedId, null);
+    }
+
+    /**
+     * failedId返回429, conflictId返回409
+     */
+    private static BulkResponse response(BulkRequest bulkRequest, boolean created, String failedId, String conflictId) {
+        List<DocWriteRequest<?>> requests = bulkRequest.requests();
+        BulkItemResponse[] items = new BulkItemResponse[requests.size()];
+        for (int i = 0; i < items.length; i++) {
+            String id = requests.get(i).id();
+            items[i] = id.equals(failedId)
+                    ? new BulkItemResponse(i, DocWriteRequest.OpType.INDEX,
+                    new BulkItemResponse.Failure("test_1", "_doc", id, new EsRejectedExecutionException("rejected")))
+                    : id.equals(conflictId)
+                    ? new BulkItemResponse(i, DocWriteRequest.OpType.INDEX, new BulkItemResponse.Failure("test_1", "_doc", id,
+                    new VersionConflictEngineException(new ShardId("test_1", "_na_", 0), id, "version conflict")))
+                    : new BulkItemResponse(i, DocWriteRequest.OpType.INDEX,
+                    new IndexResponse(new ShardId("test_1", "_na_", 0), "_doc", id, 0, 1, 1, created));
+        }
+        return new BulkResponse(items, 1);
+    }
+
+    private static SliceCheckpoint slice(RebuildProgress progress) {
+        return progress.getCheckpoint().getSlices().get(0);
+    }
+
+    @Test
+    public void keyCursorAdvancesOnlyOverContiguousCompletedPages() throws Exception {
+        RebuildProgress progress = new RebuildProgress(checkpoint(RebuildCheckpoint.KEY_MODE, 0, 100), store, 0);
+        List<Long> first = progress.readKeyPage("slice-0", () -> keys(1, 3), Long::longValue);
+        List<Long> second = progress.readKeyPage("slice-0", () -> keys(4, 6), Long::longValue);
+        List<Long> third = progress.readKeyPage("slice-0", () -> keys(7, 9), Long::longValue);
+        BulkRequest firstBulk = serialize(progress, first);
+        BulkRequest secondBulk = serialize(progress, second);
+        BulkRequest thirdBulk = serialize(progress, third);
+
+        progress.onBulk(secondBulk, response(secondBulk, true, null));
+        assertEquals(0, slice(progress).getCursor());
+        assertTrue(savedCursors.isEmpty());
+
+        progress.onBulk(firstBulk, response(firstBulk, true, null));
+        assertEquals(6, slice(progress).getCursor());
+        assertEquals(6, slice(progress).getDocs());
+        assertEquals(Collections.singletonList(6L), savedCursors);
+
+        progress.onBulk(thirdBulk, response(thirdBulk, true, null));
+        assertEquals(9, slice(progress).getCursor());
+        assertEquals(9, progress.getCreatedDocs());
+    }
+
+    @Test
+    public void failedPageBlocksCursorAndCompletion() throws Exception {
+        RebuildProgress progress = new RebuildProgress(checkpoint(RebuildCheckpoint.KEY_MODE, 0, 100), store, 0);
+        List<Long> first = progress.readKeyPage("slice-0", () -> keys(1, 3), Long::longValue);
+        List<Long> second = progress.readKeyPage("slice-0", () -> keys(4, 6), Long::longValue);
+        BulkRequest firstBulk = serialize(progress, first);
+        BulkRequest secondBulk = serialize(progress, second);
+
+        progress.onBulk(firstBulk, response(firstBulk, true, "2"));
+        progress.onBulk(secondBulk, response(secondBulk, true, null));
+        progress.markExhausted("slice-0");
+        progress.finish();
+
+        assertEquals(0, slice(progress).getCursor());
+        assertFalse(progress.isComplete());
+        assertFalse(slice(progress).isDone());
+        assertEquals(1, progress.getIncompleteSlices().size());
+    }
+
+    @Test
+    public void versionConflictIsAcknowledgedButNotCounted() throws Exception {
+        RebuildProgress progress = new RebuildProgress(checkpoint(RebuildCheckpoint.KEY_MODE, 0, 100), store, 0);
+        List<Long> first = progress.readKeyPage("slice-0", () -> keys(1, 3), Long::longValue);
+        // 跨页重复的id, 后一页的写入先确认, 前一页的同一id返回409
+        List<Long> second = progress.readKeyPage("slice-0", () -> Arrays.asList(3L, 4L, 5L), Long::longValue);
+        BulkRequest firstBulk = serialize(progress, first);
+        BulkRequest secondBulk = serialize(progress, second);
+
+        progress.onBulk(secondBulk, response(secondBulk, true, null));
+        progress.onBulk(firstBulk, response(firstBulk, true, null, "3"));
+        progress.markExhausted("slice-0");
+        progress.finish();
+
+        assertEquals(5, slice(progress).getCursor());
+        assertEquals(5, progress.getCreatedDocs());
+        assertEquals(5, slice(progress).getDocs());
+        assertTrue(progress.isComplete());
+    }
+
+    @Test
+    public void wholeBulkFailureFailsItsPages() throws Exception {
+        RebuildProgress progress = new RebuildProgress(checkpoint(RebuildCheckpoint.KEY_MODE, 0, 100), store, 0);
+        BulkRequest bulkRequest = serialize(progress, progress.readKeyPage("slice-0", () -> keys(1, 3), Long::longValue));
+
+        progress.onBulk(bulkRequest, null);
+        progress.markExhausted("slice-0");
+
+        assertEquals(0, slice(progress).getCursor());
+        assertFalse(progress.isComplete());
+    }
+
+    @Test
+    public void readFailureFailsSlice() {
+        RebuildProgress progress = new RebuildProgress(checkpoint(RebuildCheckpoint.KEY_MODE, 0, 100), store, 0);
+        assertThrows(IllegalStateException.class, () -> progress.readKeyPage("slice-0", () -> {
+            throw new IllegalStateException("db down");
+        }, Long::longValue));
+        progress.markExhausted("slice-0");
+        assertFalse(progress.isComplete());
+    }
+
+    @Test
+    public void offsetCursorCountsCommittedPagesFromCheckpoint() throws Exception {
+        RebuildProgress progress = new RebuildProgress(checkpoint(RebuildCheckpoint.OFFSET_MODE, 2, 0), store, 0);
+        List<Long> fourth = progress.readOffsetPage("slice-0", 3, () -> keys(31, 40));
+        List<Long> third = progress.readOffsetPage("slice-0", 2, () -> keys(21, 30));
+        BulkRequest fourthBulk = serialize(progress, fourth);
+        BulkRequest thirdBulk = serialize(progress, third);
+
+        progress.onBulk(fourthBulk, response(fourthBulk, true, null));
+        assertEquals(2, slice(progress).getCursor());
+        progress.onBulk(thirdBulk, response(thirdBulk, true, null));
+        assertEquals(4, slice(progress).getCursor());
+    }
+
+    @Test
+    public void updatedDocumentsAreNotCounted() throws Exception {
+        RebuildProgress progress = new RebuildProgress(checkpoint(RebuildCheckpoint.KEY_MODE, 0, 100), store, 0);
+        BulkRequest bulkRequest = serialize(progress, progress.readKeyPage("slice-0", () -> keys(1, 3), Long::longValue));
+
+        progress.onBulk(bulkRequest, response(bulkRequest, false, null));
+
+        assertEquals(3, slice(progress).getCursor());
+        assertEquals(0, slice(progress).getDocs());
+        assertEquals(0, progress.getCreatedDocs());
+    }
+
+    @Test
+    public void pageWithoutRequestsCompletesImmediately() throws Exception {
+        RebuildProgress progress = new RebuildProgress(checkpoint(RebuildCheckpoint.KEY_MODE, 0, 100), store, 0);
+        List<Long> page = progress.readKeyPage("slice-0", () -> keys(1, 3), Long::longValue);
+
+        progress.onSerialized(page, Collections.emptyList());
+
+        assertEquals(3, slice(progress).getCursor());
+    }
+
+    @Test
+    public void completesWhenTrackedSourceIsExhaustedAndAllPagesCommitted() throws Exception {
+        RebuildProgress progress = new RebuildProgress(checkpoint(RebuildCheckpoint.KEY_MODE, 0, 100), store, 60_000);
+        List<List<Long>> pages = new ArrayList<>(Arrays.asList(keys(1, 2), Collections.emptyList()));
+        PageSource<Long> source = progress.track("slice-0", () -> progress.readKeyPage("slice-0", () -> pages.remove(0), Long::longValue));
+
+        BulkRequest bulkRequest = serialize(progress, source.nextPage());
+        assertTrue(source.nextPage().isEmpty());
+        assertFalse(progress.isComplete());
+        progress.onBulk(bulkRequest, response(bulkRequest, true, null));
+        progress.finish();
+
+        assertTrue(progress.isComplete());
+        assertTrue(slice(progress).isDone());
+        assertEquals(2, slice(progress).getCursor());
+        // 首次推进立即保存, 之后保存间隔内只有finish强制保存
+        assertEquals(Arrays.asList(2L, 2L), savedCursors);
+    }
+}
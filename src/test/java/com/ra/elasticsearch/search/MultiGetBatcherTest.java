@@ -0,0 +1,109 @@
+package com.ra.elasticsearch.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MultiGetBatcherTest {
+
+    private static final long LONG_WINDOW_MICROS = TimeUnit.SECONDS.toMicros(60);
+    private final List<List<String>> batches = new CopyOnWriteArrayList<>();
+
+    /**
+     * 除id为missing外每个id返回"doc-"+id
+     */
+    private CompletableFuture<Map<String, String>> load(List<String> ids) {
+        batches.add(ids);
+        Map<String, String> documents = new HashMap<>();
+        ids.stream().filter(id -> !"missing".equals(id)).forEach(id -> documents.put(id, "doc-" + id));
+        return CompletableFuture.completedFuture(documents);
+    }
+
+    @Test
+    public void deduplicatesIdsWithinWindow() throws Exception {
+        MultiGetBatcher<String> batcher = new MultiGetBatcher<>("test", 20_000, 100, this::load);
+        try {
+            CompletableFuture<String> a = batcher.load("a");
+            assertSame(a, batcher.load("a"));
+            CompletableFuture<String> missing = batcher.load("missing");
+
+            assertEquals("doc-a", a.get(5, TimeUnit.SECONDS));
+            assertNull(missing.get(5, TimeUnit.SECONDS));
+            assertEquals(Collections.singletonList(Arrays.asList("a", "missing")), batches);
+        } finally {
+            batcher.close();
+        }
+    }
+
+    @Test
+    public void dispatchesImmediatelyWhenBatchIsFull() {
+        MultiGetBatcher<String> batcher = new MultiGetBatcher<>("test", LONG_WINDOW_MICROS, 2, this::load);
+        try {
+            CompletableFuture<String> a = batcher.load("a");
+            CompletableFuture<String> b = batcher.load("b");
+            CompletableFuture<String> c = batcher.load("c");
+
+            assertTrue(a.isDone());
+            assertTrue(b.isDone());
+            assertFalse(c.isDone());
+            assertEquals(Collections.singletonList(Arrays.asList("a", "b")), batches);
+            // 已发出的id不再合并, 重新进入下一批
+            assertTrue(batcher.load("a").isDone());
+            assertEquals(Arrays.asList("c", "a"), batches.get(1));
+        } finally {
+            batcher.close();
+        }
+    }
+
+    @Test
+    public void closeFlushesPendingIds() throws Exception {
+        MultiGetBatcher<String> batcher = new MultiGetBatcher<>("test", LONG_WINDOW_MICROS, 100, this::load);
+        CompletableFuture<String> a = batcher.load("a");
+        batcher.close();
+        assertEquals("doc-a", a.getNow(null));
+    }
+
+    @Test
+    public void loaderFailureFailsEveryFutureInBatch() {
+        CompletableFuture<Map<String, String>> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new IllegalStateException("mget failed"));
+        MultiGetBatcher<String> batcher = new MultiGetBatcher<>("test", LONG_WINDOW_MICROS, 2, ids -> failed);
+        try {
+            CompletableFuture<String> a = batcher.load("a");
+            CompletableFuture<String> b = batcher.load("b");
+            ExecutionException e = assertThrows(ExecutionException.class, a::get);
+            assertTrue(e.getCause() instanceof IllegalStateException);
+            assertTrue(b.isCompletedExceptionally());
+        } finally {
+            batcher.close();
+        }
+    }
+
+    @Test
+    public void loaderThrowingFailsEveryFutureInBatch() {
+        MultiGetBatcher<String> batcher = new MultiGetBatcher<>("test", LONG_WINDOW_MICROS, 1, ids -> {
+            throw new IllegalArgumentException("bad ids");
+        });
+        try {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> batcher.load("a").get());
+            assertTrue(e.getCause() instanceof IllegalArgumentException);
+        } finally {
+            batcher.close();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.ra.elasticsearch.sync;
+
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.delete.DeleteRequest;
+import org.elasticsearch.action.delete.DeleteResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.index.IndexResponse;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.text.Text;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.search.SearchHit;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ContentFingerprintsTest {
+
+    private static final ShardId SHARD_ID = new ShardId("test", "_na_", 0);
+    private static final BytesReference OLD = new BytesArray("{\"v\":1}");
+    private static final BytesReference NEW = new BytesArray("{\"v\":2}");
+
+    private static SearchHit hit(String id, BytesReference source) {
+        return new SearchHit(0, id, new Text("_doc"), Collections.emptyMap()).sourceRef(source);
+    }
+
+    /**
+     * 返回一页快照, 在加载读取该页时执行duringLoad, 模拟加载期间的实时写入
+     */
+    private static Iterator<SearchHit[]> pages(Runnable duringLoad, SearchHit... hits) {
+        return new Iterator<SearchHit[]>() {
+            private boolean read;
+
+            @Override
+            public boolean hasNext() {
+                return !read;
+            }
+
+            @Override
+            public SearchHit[] next() {
+                read = true;
+                duringLoad.run();
+                return hits;
+            }
+        };
+    }
+
+    private static ContentFingerprints loaded(SearchHit... hits) {
+        ContentFingerprints fingerprints = new ContentFingerprints();
+        fingerprints.load(pages(() -> {
+        }, hits));
+        return fingerprints;
+    }
+
+    @Test
+    public void notLoadedNeverReportsUnchanged() {
+        ContentFingerprints fingerprints = new ContentFingerprints();
+        fingerprints.put("1", OLD);
+        assertFalse(fingerprints.isLoaded());
+        assertFalse(fingerprints.isUnchanged("1", OLD));
+    }
+
+    @Test
+    public void loadedSnapshotIsComparedBySourceBytes() {
+        ContentFingerprints fingerprints = loaded(hit("1", OLD), hit("2", NEW));
+        assertTrue(fingerprints.isLoaded());
+        assertEquals(2, fingerprints.size());
+        assertTrue(fingerprints.isUnchanged("1", OLD));
+        assertFalse(fingerprints.isUnchanged("1", NEW));
+        assertFalse(fingerprints.isUnchanged("3", OLD));
+    }
+
+    @Test
+    public void writesDuringLoadWinOverSnapshot() {
+        ContentFingerprints fingerprints = new ContentFingerprints();
+        fingerprints.load(pages(() -> {
+            fingerprints.put("1", NEW);
+            fingerprints.remove("2");
+        }, hit("1", OLD), hit("2", OLD), hit("3", OLD)));
+
+        assertTrue(fingerprints.isUnchanged("1", NEW));
+        assertFalse(fingerprints.isUnchanged("1", OLD));
+        assertFalse(fingerprints.isUnchanged("2", OLD));
+        assertTrue(fingerprints.isUnchanged("3", OLD));
+    }
+
+    @Test
+    public void resetDuringLoadDiscardsLoad() {
+        ContentFingerprints fingerprints = new ContentFingerprints();
+        fingerprints.load(pages(fingerprints::reset, hit("1", OLD)));
+
+        assertFalse(fingerprints.isLoaded());
+        assertEquals(0, fingerprints.size());
+        assertFalse(fingerprints.isUnchanged("1", OLD));
+    }
+
+    @Test
+    public void failedBulkItemIsNotTreatedAsUnchanged() {
+        ContentFingerprints fingerprints = loaded(hit("1", OLD), hit("2", OLD));
+        BulkRequest bulkRequest = new BulkRequest()
+                .add(new IndexRequest("test").id("1").source(NEW, XContentType.JSON))
+                .add(new IndexRequest("test").id("2").source(NEW, XContentType.JSON));
+        BulkResponse bulkResponse = new BulkResponse(new BulkItemResponse[]{
+                new BulkItemResponse(0, DocWriteRequest.OpType.INDEX, new IndexResponse(SHARD_ID, "_doc", "1", 0, 1, 2, false)),
+                new BulkItemResponse(1, DocWriteRequest.OpType.INDEX,
+                        new BulkItemResponse.Failure("test", "_doc", "2", new EsRejectedExecutionException("rejected")))}, 1);
+
+        fingerprints.record(bulkRequest, bulkResponse);
+
+        assertTrue(fingerprints.isUnchanged("1", NEW));
+        // 写入失败后索引中的内容未知, 无论新旧内容都需要重新写入
+        assertFalse(fingerprints.isUnchanged("2", NEW));
+        assertFalse(fingerprints.isUnchanged("2", OLD));
+    }
+
+    @Test
+    public void wholeBulkFailureAndDeletesRemoveFingerprints() {
+        ContentFingerprints fingerprints = loaded(hit("1", OLD), hit("2", OLD));
+        BulkRequest failed = new BulkRequest().add(new IndexRequest("test").id("1").source(NEW, XContentType.JSON));
+        fingerprints.record(failed, null);
+        assertFalse(fingerprints.isUnchanged("1", NEW));
+        assertFalse(fingerprints.isUnchanged("1", OLD));
+
+        BulkRequest delete = new BulkRequest().add(new DeleteRequest("test", "2"));
+        List<DocWriteRequest<?>> requests = delete.requests();
+        fingerprints.record(delete, new BulkResponse(new BulkItemResponse[]{new BulkItemResponse(0, requests.get(0).opType(),
+                new DeleteResponse(SHARD_ID, "_doc", "2", 0, 1, 2, true))}, 1));
+        assertFalse(fingerprints.isUnchanged("2", OLD));
+        assertEquals(0, fingerprints.size());
+    }
+}